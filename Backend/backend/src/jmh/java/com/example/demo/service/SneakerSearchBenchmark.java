@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.SneakerDocument;
+import com.example.demo.event.SneakerChangedEvent;
+import com.example.demo.service.SneakerSearchIndex.Field;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exact against fuzzy catalog search over a synthetic catalog. Run with
+ * {@code gradle jmh}; pass JMH options through {@code -PjmhArgs="..."}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SneakerSearchBenchmark {
+
+    private static final String[] BRANDS = {"Nike", "Adidas", "New Balance", "Asics", "Puma", "Reebok", "Converse", "Vans"};
+    private static final String[] MODELS = {"Air Jordan", "Yeezy Boost", "Air Max", "Gel Lyte", "Suede Classic",
+            "Club C", "Chuck Taylor", "Old Skool", "Dunk Low", "Ultraboost", "Gazelle", "Samba"};
+    private static final String[] COLORS = {"Black", "White", "Red", "Blue", "Grey", "Green"};
+    private static final EnumSet<Field> NAME_AND_BRAND = EnumSet.of(Field.NAME, Field.BRAND);
+
+    @Param({"1000", "20000"})
+    private int catalogSize;
+
+    private SneakerSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        index = new SneakerSearchIndex();
+        Random random = new Random(42);
+        for (long id = 1; id <= catalogSize; id++) {
+            String name = MODELS[random.nextInt(MODELS.length)] + " " + (1 + random.nextInt(99));
+            index.onSneakerChanged(SneakerChangedEvent.created(new SneakerDocument(id, name,
+                    BRANDS[random.nextInt(BRANDS.length)], null, COLORS[random.nextInt(COLORS.length)], "10", "NEW",
+                    new BigDecimal("120.00"), 1, LocalDateTime.now())));
+        }
+    }
+
+    @Benchmark
+    public List<Long> exact() {
+        return index.search("jordan", NAME_AND_BRAND, 24, false);
+    }
+
+    @Benchmark
+    public List<Long> fuzzyTransposition() {
+        return index.search("jordna", NAME_AND_BRAND, 24, true);
+    }
+
+    @Benchmark
+    public List<Long> fuzzyMissingLetter() {
+        return index.search("yezy", NAME_AND_BRAND, 24, true);
+    }
+
+    @Benchmark
+    public List<Long> fuzzyTwoTokens() {
+        return index.search("ultrabost adidsa", NAME_AND_BRAND, 24, true);
+    }
+}
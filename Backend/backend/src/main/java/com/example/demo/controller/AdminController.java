@@ -0,0 +1,218 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.CatalogCacheService;
+import com.example.demo.service.DeadlineScheduler;
+import com.example.demo.service.FlashSaleService;
+import com.example.demo.service.ImageMigrationService;
+import com.example.demo.service.OrderSchedulerService;
+import com.example.demo.service.OutboxRelay;
+import com.example.demo.service.ReviewService;
+import com.example.demo.service.SneakerFacetIndex;
+import com.example.demo.service.SneakerSearchIndex;
+import com.example.demo.service.SneakerSimilarIndex;
+import com.example.demo.service.SneakerSuggestIndex;
+import com.example.demo.service.TrendingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+    @Autowired
+    private ImageMigrationService imageMigrationService;
+
+    @Autowired
+    private SneakerSearchIndex sneakerSearchIndex;
+
+    @Autowired
+    private SneakerFacetIndex sneakerFacetIndex;
+
+    @Autowired
+    private SneakerSuggestIndex sneakerSuggestIndex;
+
+    @Autowired
+    private SneakerSimilarIndex sneakerSimilarIndex;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Autowired
+    private CatalogCacheService catalogCacheService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private OrderSchedulerService orderSchedulerService;
+
+    @Autowired
+    private DeadlineScheduler deadlineScheduler;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @PostMapping("/images/migrate")
+    public ResponseEntity<?> migrateImages() {
+        try {
+            java.util.Map<String, Object> result = imageMigrationService.migrateBase64Images();
+            // Rewritten rows bypass the services, so cached responses still point at the old data
+            catalogCacheService.clear();
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/search/rebuild")
+    public ResponseEntity<?> rebuildSearchIndex() {
+        try {
+            return ResponseEntity.ok(sneakerSearchIndex.rebuild());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/search/stats")
+    public ResponseEntity<?> getSearchIndexStats() {
+        return ResponseEntity.ok(sneakerSearchIndex.getStats());
+    }
+
+    @PostMapping("/facets/rebuild")
+    public ResponseEntity<?> rebuildFacetIndex() {
+        try {
+            return ResponseEntity.ok(sneakerFacetIndex.rebuild());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/facets/stats")
+    public ResponseEntity<?> getFacetIndexStats() {
+        return ResponseEntity.ok(sneakerFacetIndex.getStats());
+    }
+
+    @PostMapping("/suggest/rebuild")
+    public ResponseEntity<?> rebuildSuggestIndex() {
+        try {
+            return ResponseEntity.ok(sneakerSuggestIndex.rebuild());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/suggest/stats")
+    public ResponseEntity<?> getSuggestIndexStats() {
+        return ResponseEntity.ok(sneakerSuggestIndex.getStats());
+    }
+
+    @PostMapping("/similar/rebuild")
+    public ResponseEntity<?> rebuildSimilarIndex() {
+        try {
+            return ResponseEntity.ok(sneakerSimilarIndex.rebuild());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/similar/stats")
+    public ResponseEntity<?> getSimilarIndexStats() {
+        return ResponseEntity.ok(sneakerSimilarIndex.getStats());
+    }
+
+    @PostMapping("/trending/flush")
+    public ResponseEntity<?> flushTrending() {
+        try {
+            return ResponseEntity.ok(trendingService.flush());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/trending/stats")
+    public ResponseEntity<?> getTrendingStats() {
+        return ResponseEntity.ok(trendingService.getStats());
+    }
+
+    @GetMapping("/orders/auto-complete/stats")
+    public ResponseEntity<?> getAutoCompleteStats() {
+        return ResponseEntity.ok(orderSchedulerService.getStats());
+    }
+
+    @GetMapping("/outbox/stats")
+    public ResponseEntity<?> getOutboxStats() {
+        return ResponseEntity.ok(outboxRelay.getStats());
+    }
+
+    @PostMapping("/outbox/parked/retry")
+    public ResponseEntity<?> retryParkedOutboxEvents() {
+        try {
+            return ResponseEntity.ok(java.util.Map.of("released", outboxRelay.retryParked()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/deadlines/stats")
+    public ResponseEntity<?> getDeadlineStats() {
+        return ResponseEntity.ok(deadlineScheduler.getStats());
+    }
+
+    @PostMapping("/flash-sales/{sneakerId}")
+    public ResponseEntity<?> enableFlashSale(@PathVariable Long sneakerId) {
+        try {
+            return ResponseEntity.ok(flashSaleService.enable(sneakerId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @DeleteMapping("/flash-sales/{sneakerId}")
+    public ResponseEntity<?> disableFlashSale(@PathVariable Long sneakerId) {
+        try {
+            flashSaleService.disable(sneakerId);
+            return ResponseEntity.ok(java.util.Map.of("message", "Flash sale ended"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/flash-sales/reconcile")
+    public ResponseEntity<?> reconcileFlashSales() {
+        try {
+            return ResponseEntity.ok(flashSaleService.reconcileAll());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/flash-sales")
+    public ResponseEntity<?> getFlashSaleStats() {
+        return ResponseEntity.ok(flashSaleService.getStats());
+    }
+
+    @PostMapping("/ratings/rebuild")
+    public ResponseEntity<?> rebuildRatings() {
+        try {
+            java.util.Map<String, Object> result = reviewService.rebuildRatings();
+            catalogCacheService.clear();
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> getCacheStats() {
+        return ResponseEntity.ok(catalogCacheService.getStats());
+    }
+
+    @PostMapping("/cache/clear")
+    public ResponseEntity<?> clearCache() {
+        catalogCacheService.clear();
+        return ResponseEntity.ok(java.util.Map.of("message", "Catalog cache cleared"));
+    }
+}
@@ -20,8 +20,13 @@ public class DashboardController {
     }
 
     @GetMapping("/seller/orders")
-    public ResponseEntity<?> getSellerOrders() {
+    public ResponseEntity<?> getSellerOrders(@RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer limit) {
         try {
+            if (cursor != null || limit != null) {
+                return ResponseEntity.ok(dashboardService.getSellerOrdersPage(cursor, limit)
+                        .map(com.example.demo.dto.OrderResponse::new));
+            }
             List<Order> orders = dashboardService.getSellerOrders();
             List<com.example.demo.dto.OrderResponse> response = orders.stream()
                     .map(com.example.demo.dto.OrderResponse::new)
@@ -0,0 +1,63 @@
+package com.example.demo.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET helpers shared by the public read endpoints.
+ */
+public final class HttpCaching {
+
+    /** Catalog lists: short shared caching, then revalidate with If-None-Match. */
+    public static final CacheControl CATALOG = CacheControl.maxAge(30, TimeUnit.SECONDS).cachePublic().mustRevalidate();
+
+    /** Listing details carry live stock, so clients revalidate on every view. */
+    public static final CacheControl DETAIL = CacheControl.noCache().cachePublic();
+
+    private HttpCaching() {}
+
+    /**
+     * True when the If-None-Match header contains the given strong ETag (or {@code *}).
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns 304 when the client already has this version, otherwise the
+     * pre-serialized JSON body. Neither path runs Jackson.
+     */
+    public static ResponseEntity<?> json(String ifNoneMatch, String etag, CacheControl cacheControl, byte[] json) {
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(json);
+    }
+
+    /**
+     * Returns 304 when the client already has this version, otherwise builds the body lazily.
+     */
+    public static ResponseEntity<?> versioned(String ifNoneMatch, String etag, CacheControl cacheControl, Supplier<?> body) {
+        if (matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(cacheControl).body(body.get());
+    }
+}
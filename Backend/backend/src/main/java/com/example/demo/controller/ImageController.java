@@ -0,0 +1,109 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.ImageStorageService;
+import com.example.demo.service.ThumbnailService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/images")
+public class ImageController {
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private ThumbnailService thumbnailService;
+
+    @PostMapping
+    public ResponseEntity<?> uploadImage(@RequestParam("file") MultipartFile file) {
+        try {
+            if (file == null || file.isEmpty()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Image file is required"));
+            }
+            String id;
+            try (InputStream in = file.getInputStream()) {
+                id = imageStorageService.store(in);
+            }
+            return ResponseEntity.ok(Map.of("id", id, "url", ImageStorageService.toUrl(id)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}")
+    public void getImage(@PathVariable String id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!imageStorageService.isImageId(id)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        // The id is the content hash, so it is a strong validator and the bytes never change
+        String etag = "\"" + id.substring(0, id.indexOf('.')) + "\"";
+        streamFile(imageStorageService.resolve(id), imageStorageService.contentType(id), etag, IMMUTABLE, request, response);
+    }
+
+    @GetMapping("/{id}/thumb/{variant}")
+    public void getThumbnail(@PathVariable String id, @PathVariable String variant,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ThumbnailService.Variant size = ThumbnailService.Variant.fromKey(variant);
+        if (!imageStorageService.isImageId(id) || size == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        Path thumbnail = thumbnailService.getThumbnail(id, size);
+        if (thumbnail == null) {
+            // Not renderable right now; hand out the original without letting clients pin it to this URL
+            String etag = "\"" + id.substring(0, id.indexOf('.')) + "\"";
+            streamFile(imageStorageService.resolve(id), imageStorageService.contentType(id), etag, "public, max-age=60", request, response);
+            return;
+        }
+        String etag = "\"" + id.substring(0, id.indexOf('.')) + "-" + size.key() + "\"";
+        streamFile(thumbnail, thumbnailService.contentType(thumbnail), etag, IMMUTABLE, request, response);
+    }
+
+    private void streamFile(Path file, String contentType, String etag, String cacheControl,
+                            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (HttpCaching.matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            response.setContentType(contentType);
+            response.setContentLengthLong(size);
+
+            // transferTo lets the kernel copy file pages straight to the socket where supported
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                long sent = channel.transferTo(position, size - position, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+            }
+        } catch (NoSuchFileException e) {
+            response.reset();
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+}
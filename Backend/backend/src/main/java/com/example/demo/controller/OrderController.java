@@ -1,7 +1,12 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.CheckoutRequest;
+import com.example.demo.dto.CheckoutResponse;
 import com.example.demo.dto.OrderRequest;
+import com.example.demo.exception.OrderPendingException;
 import com.example.demo.model.Order;
+import com.example.demo.service.FlashSaleService;
+import com.example.demo.service.IdempotencyService;
 import com.example.demo.service.OrderService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,19 +23,62 @@ public class OrderController {
     @Autowired
     private com.example.demo.service.OrderSchedulerService orderSchedulerService;
 
+    @Autowired
+    private FlashSaleService flashSaleService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @PostMapping
-    public ResponseEntity<?> createOrder(@Valid @RequestBody OrderRequest request) {
+    public ResponseEntity<?> createOrder(@Valid @RequestBody OrderRequest request,
+                                         @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        // Flash-sale orders are admitted outside any transaction so waiting buyers hold no connection
+        boolean flashSale = flashSaleService.isActive(request.getSneakerId());
+        if (idempotencyKey == null) {
+            return placeOrder(request, flashSale, null);
+        }
         try {
-            Order order = orderService.createOrder(request);
+            // A flash-sale order may still be queued when we answer, so its key is completed by the writer
+            return flashSale
+                    ? idempotencyService.executeDeferred(idempotencyKey, request, pending -> placeOrder(request, true, pending))
+                    : idempotencyService.execute(idempotencyKey, request, () -> placeOrder(request, false, null));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    private ResponseEntity<?> placeOrder(OrderRequest request, boolean flashSale, IdempotencyService.PendingKey idempotencyKey) {
+        try {
+            Order order = flashSale
+                    ? flashSaleService.placeOrder(request, idempotencyKey)
+                    : orderService.createOrder(request);
             return ResponseEntity.ok(new com.example.demo.dto.OrderResponse(order));
+        } catch (OrderPendingException e) {
+            // Still queued: a retry with the same Idempotency-Key waits for the writer's outcome
+            return ResponseEntity.accepted().body(java.util.Map.of("message", e.getMessage()));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/checkout")
+    public ResponseEntity<?> checkout(@Valid @RequestBody CheckoutRequest request) {
+        try {
+            return ResponseEntity.ok(new CheckoutResponse(orderService.checkout(request)));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
         }
     }
 
     @GetMapping("/my-orders")
-    public ResponseEntity<?> getMyOrders() {
+    public ResponseEntity<?> getMyOrders(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer limit) {
         try {
+            // Without paging parameters the full history is returned as before
+            if (cursor != null || limit != null) {
+                return ResponseEntity.ok(orderService.getMyOrdersPage(cursor, limit)
+                        .map(com.example.demo.dto.OrderResponse::new));
+            }
             List<Order> orders = orderService.getMyOrders();
             List<com.example.demo.dto.OrderResponse> response = orders.stream()
                     .map(com.example.demo.dto.OrderResponse::new)
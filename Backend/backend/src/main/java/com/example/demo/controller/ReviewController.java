@@ -5,6 +5,7 @@ import com.example.demo.model.Review;
 import com.example.demo.service.ReviewService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.util.List;
@@ -21,8 +22,11 @@ public class ReviewController {
     }
 
     @GetMapping("/sneaker/{sneakerId}")
-    public ResponseEntity<List<com.example.demo.dto.ReviewResponse>> getReviewsBySneaker(@PathVariable Long sneakerId) {
-        return ResponseEntity.ok(reviewService.getReviewsBySneaker(sneakerId));
+    public ResponseEntity<?> getReviewsBySneaker(@PathVariable Long sneakerId,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = reviewService.getReviewsEtag(sneakerId);
+        return HttpCaching.versioned(ifNoneMatch, etag, HttpCaching.DETAIL,
+                () -> reviewService.getReviewsBySneaker(sneakerId));
     }
 
     @GetMapping("/my-reviews")
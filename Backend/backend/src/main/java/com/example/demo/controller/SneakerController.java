@@ -1,13 +1,31 @@
 package com.example.demo.controller;
 
+import com.example.demo.dto.BulkSneakerUpdateRequest;
 import com.example.demo.dto.SneakerRequest;
+import com.example.demo.event.EngagementEvent;
+import com.example.demo.exception.IndexNotReadyException;
 import com.example.demo.model.Sneaker;
+import com.example.demo.service.CatalogCacheService;
+import com.example.demo.service.CatalogExportService;
+import com.example.demo.service.SneakerFacetIndex;
+import com.example.demo.service.SneakerImportService;
 import com.example.demo.service.SneakerService;
+import com.example.demo.service.SneakerSuggestIndex;
+import com.example.demo.service.TrendingService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/sneakers")
@@ -15,6 +33,24 @@ public class SneakerController {
     @Autowired
     private SneakerService sneakerService;
 
+    @Autowired
+    private CatalogCacheService catalogCacheService;
+
+    @Autowired
+    private SneakerImportService sneakerImportService;
+
+    @Autowired
+    private CatalogExportService catalogExportService;
+
+    @Autowired
+    private SneakerSuggestIndex sneakerSuggestIndex;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Value("${suggest.max-results:10}")
+    private int maxSuggestions;
+
     @PostMapping
     public ResponseEntity<?> createSneaker(@Valid @RequestBody SneakerRequest request) {
         try {
@@ -25,37 +61,133 @@ public class SneakerController {
         }
     }
 
+    /**
+     * Bulk import from a CSV or NDJSON request body. Responds with one NDJSON
+     * result line per row as rows are saved, then a summary line.
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importSneakers(@RequestParam(required = false) String format,
+                                            HttpServletRequest request, HttpServletResponse response) {
+        SneakerImportService.Format importFormat;
+        try {
+            importFormat = SneakerImportService.Format.resolve(format, request.getContentType());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+        try {
+            response.setContentType("application/x-ndjson");
+            response.setCharacterEncoding("UTF-8");
+            sneakerImportService.importListings(request.getInputStream(), importFormat, response.getOutputStream());
+            // The response has been written directly
+            return null;
+        } catch (Exception e) {
+            if (response.isCommitted()) {
+                return null;
+            }
+            response.reset();
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Streams the catalog as NDJSON. Pass {@code since} (ISO date-time) for an
+     * incremental pull of listings created or updated after it, plus deletion
+     * lines for listings removed since then; the body is gzipped when the
+     * client accepts it.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<?> exportSneakers(@RequestParam(required = false)
+                                            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                            HttpServletResponse response) {
+        try {
+            response.setContentType("application/x-ndjson");
+            response.setCharacterEncoding("UTF-8");
+            // Clients can pass this back as the next since; it is taken before the query starts
+            response.setHeader("X-Export-Started-At", LocalDateTime.now().toString());
+            boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+            if (gzip) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+                response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+                try (GZIPOutputStream output = new GZIPOutputStream(response.getOutputStream(), 64 * 1024)) {
+                    catalogExportService.export(since, output);
+                }
+            } else {
+                OutputStream output = response.getOutputStream();
+                catalogExportService.export(since, output);
+                output.flush();
+            }
+            // The response has been written directly
+            return null;
+        } catch (Exception e) {
+            if (response.isCommitted()) {
+                return null;
+            }
+            response.reset();
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/all")
-    public ResponseEntity<?> getAllSneakers() {
+    public ResponseEntity<?> getAllSneakers(@RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer limit,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            List<Sneaker> sneakers = sneakerService.getAllSneakers();
-            List<com.example.demo.dto.SneakerResponse> response = sneakers.stream()
-                    .map(com.example.demo.dto.SneakerResponse::new)
-                    .toList();
-            return ResponseEntity.ok(response);
+            // Callers that pass neither parameter keep receiving the plain list of full responses
+            if (cursor != null || limit != null) {
+                return cached(catalogCacheService.getAvailablePage(cursor, limit), ifNoneMatch, HttpCaching.CATALOG);
+            }
+            return cached(catalogCacheService.getAvailableListing(), ifNoneMatch, HttpCaching.CATALOG);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
         }
     }
 
     @GetMapping("/available")
-    public ResponseEntity<?> getAvailableSneakers() {
+    public ResponseEntity<?> getAvailableSneakers(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer limit,
+                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            // Callers that pass neither parameter keep receiving the plain list of full responses
+            if (cursor != null || limit != null) {
+                return cached(catalogCacheService.getAvailablePage(cursor, limit), ifNoneMatch, HttpCaching.CATALOG);
+            }
+            return cached(catalogCacheService.getAvailableListing(), ifNoneMatch, HttpCaching.CATALOG);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/trending")
+    public ResponseEntity<?> getTrendingSneakers(@RequestParam(required = false) Integer limit,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            List<Sneaker> sneakers = sneakerService.getAvailableSneakers();
-            List<com.example.demo.dto.SneakerResponse> response = sneakers.stream()
-                    .map(com.example.demo.dto.SneakerResponse::new)
-                    .toList();
-            return ResponseEntity.ok(response);
+            return cached(catalogCacheService.getTrending(limit), ifNoneMatch, HttpCaching.CATALOG);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
         }
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getSneakerById(@PathVariable Long id) {
+    public ResponseEntity<?> getSneakerById(@PathVariable Long id,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            Sneaker sneaker = sneakerService.getSneakerById(id);
-            return ResponseEntity.ok(new com.example.demo.dto.SneakerResponse(sneaker));
+            ResponseEntity<?> response = cached(catalogCacheService.getSneaker(id), ifNoneMatch, HttpCaching.DETAIL);
+            trendingService.record(id, EngagementEvent.Type.VIEW);
+            return response;
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{id}/similar")
+    public ResponseEntity<?> getSimilarSneakers(@PathVariable Long id, @RequestParam(required = false) Integer limit,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            return cached(catalogCacheService.getSimilar(id, limit), ifNoneMatch, HttpCaching.CATALOG);
+        } catch (IndexNotReadyException e) {
+            // GlobalExceptionHandler answers 503 with Retry-After
+            throw e;
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
         }
@@ -64,11 +196,16 @@ public class SneakerController {
     @GetMapping("/my-sneakers")
     public ResponseEntity<?> getMySneakers() {
         try {
-            List<Sneaker> sneakers = sneakerService.getMySneakers();
-            List<com.example.demo.dto.SneakerResponse> response = sneakers.stream()
-                    .map(com.example.demo.dto.SneakerResponse::new)
-                    .toList();
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok(sneakerService.getMySneakerListing());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PutMapping("/bulk")
+    public ResponseEntity<?> bulkUpdateSneakers(@Valid @RequestBody BulkSneakerUpdateRequest request) {
+        try {
+            return ResponseEntity.ok(sneakerService.bulkUpdate(request));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
         }
@@ -90,29 +227,84 @@ public class SneakerController {
         return ResponseEntity.noContent().build();
     }
 
+    @GetMapping("/filter")
+    public ResponseEntity<?> filter(@RequestParam(required = false) List<String> brand,
+                                    @RequestParam(required = false) List<String> size,
+                                    @RequestParam(required = false) List<String> color,
+                                    @RequestParam(required = false) List<String> condition,
+                                    @RequestParam(required = false) List<String> price,
+                                    @RequestParam(defaultValue = "all") String match,
+                                    @RequestParam(required = false) String cursor,
+                                    @RequestParam(required = false) Integer limit) {
+        try {
+            java.util.Map<SneakerFacetIndex.Facet, List<String>> selections = new java.util.EnumMap<>(SneakerFacetIndex.Facet.class);
+            selections.put(SneakerFacetIndex.Facet.BRAND, brand);
+            selections.put(SneakerFacetIndex.Facet.SIZE, size);
+            selections.put(SneakerFacetIndex.Facet.COLOR, color);
+            selections.put(SneakerFacetIndex.Facet.CONDITION, condition);
+            selections.put(SneakerFacetIndex.Facet.PRICE, price);
+            if (!match.equalsIgnoreCase("all") && !match.equalsIgnoreCase("any")) {
+                throw new IllegalArgumentException("Match must be 'all' or 'any'");
+            }
+            return ResponseEntity.ok(sneakerService.filter(selections, match.equalsIgnoreCase("all"), cursor, limit));
+        } catch (IndexNotReadyException e) {
+            throw e;
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Typeahead for the search box, served entirely from memory.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggest(@RequestParam String q, @RequestParam(required = false) Integer limit) {
+        try {
+            int size = limit == null ? maxSuggestions : Math.min(limit, maxSuggestions);
+            return ResponseEntity.ok()
+                    .cacheControl(HttpCaching.CATALOG)
+                    .body(sneakerSuggestIndex.suggest(q, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> search(@RequestParam String q,
+                                    @RequestParam(defaultValue = "false") boolean fuzzy,
+                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        try {
+            if (fuzzy) {
+                return cached(catalogCacheService.search("fuzzy", q, () -> sneakerService.searchFuzzy(q)), ifNoneMatch, HttpCaching.CATALOG);
+            }
+            return cached(catalogCacheService.search("all", q, () -> sneakerService.search(q)), ifNoneMatch, HttpCaching.CATALOG);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
+        }
+    }
+
     @GetMapping("/search/brand")
-    public ResponseEntity<?> searchByBrand(@RequestParam String brand) {
+    public ResponseEntity<?> searchByBrand(@RequestParam String brand,
+                                           @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            List<Sneaker> sneakers = sneakerService.searchByBrand(brand);
-            List<com.example.demo.dto.SneakerResponse> response = sneakers.stream()
-                    .map(com.example.demo.dto.SneakerResponse::new)
-                    .toList();
-            return ResponseEntity.ok(response);
+            return cached(catalogCacheService.search("brand", brand, () -> sneakerService.searchByBrand(brand)), ifNoneMatch, HttpCaching.CATALOG);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
         }
     }
 
     @GetMapping("/search/name")
-    public ResponseEntity<?> searchByName(@RequestParam String name) {
+    public ResponseEntity<?> searchByName(@RequestParam String name,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            List<Sneaker> sneakers = sneakerService.searchByName(name);
-            List<com.example.demo.dto.SneakerResponse> response = sneakers.stream()
-                    .map(com.example.demo.dto.SneakerResponse::new)
-                    .toList();
-            return ResponseEntity.ok(response);
+            return cached(catalogCacheService.search("name", name, () -> sneakerService.searchByName(name)), ifNoneMatch, HttpCaching.CATALOG);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(java.util.Map.of("error", e.getMessage()));
         }
     }
+
+    private ResponseEntity<?> cached(CatalogCacheService.Cached<?> cached, String ifNoneMatch,
+                                     CacheControl cacheControl) {
+        return HttpCaching.json(ifNoneMatch, cached.etag(), cacheControl, cached.json());
+    }
 }
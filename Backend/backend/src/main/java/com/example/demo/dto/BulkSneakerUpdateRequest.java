@@ -0,0 +1,30 @@
+package com.example.demo.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.math.BigDecimal;
+import java.util.List;
+
+public class BulkSneakerUpdateRequest {
+    // Items are checked one by one in the service so a bad item only fails itself
+    @NotEmpty(message = "At least one item is required")
+    @Size(max = 500, message = "At most 500 items can be updated at once")
+    private List<Item> items;
+
+    public static class Item {
+        private Long id;
+        private BigDecimal price;
+        private Integer stock;
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public BigDecimal getPrice() { return price; }
+        public void setPrice(BigDecimal price) { this.price = price; }
+        public Integer getStock() { return stock; }
+        public void setStock(Integer stock) { this.stock = stock; }
+    }
+
+    // Getters and Setters
+    public List<Item> getItems() { return items; }
+    public void setItems(List<Item> items) { this.items = items; }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class BulkSneakerUpdateResponse {
+    private int updated;
+    private int failed;
+    private List<ItemResult> results = new ArrayList<>();
+
+    public enum Outcome {
+        UPDATED, INVALID, NOT_FOUND, FORBIDDEN
+    }
+
+    public static class ItemResult {
+        private Long id;
+        private Outcome outcome;
+        private String error;
+
+        public ItemResult(Long id, Outcome outcome, String error) {
+            this.id = id;
+            this.outcome = outcome;
+            this.error = error;
+        }
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public Outcome getOutcome() { return outcome; }
+        public void setOutcome(Outcome outcome) { this.outcome = outcome; }
+        public String getError() { return error; }
+        public void setError(String error) { this.error = error; }
+    }
+
+    public void add(ItemResult result) {
+        results.add(result);
+        if (result.getOutcome() == Outcome.UPDATED) {
+            updated++;
+        } else {
+            failed++;
+        }
+    }
+
+    // Getters and Setters
+    public int getUpdated() { return updated; }
+    public void setUpdated(int updated) { this.updated = updated; }
+
+    public int getFailed() { return failed; }
+    public void setFailed(int failed) { this.failed = failed; }
+
+    public List<ItemResult> getResults() { return results; }
+    public void setResults(List<ItemResult> results) { this.results = results; }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class CheckoutRequest {
+    /** Most pairs of one listing a single checkout can take, across repeated lines. */
+    public static final int MAX_QUANTITY = 10;
+
+    @NotEmpty(message = "At least one item is required")
+    @Size(max = 50, message = "At most 50 items can be checked out at once")
+    @Valid
+    private List<Item> items;
+
+    @NotBlank(message = "Shipping address is required")
+    private String shippingAddress;
+
+    @NotBlank(message = "Phone number is required")
+    private String phoneNumber;
+
+    public static class Item {
+        @NotNull(message = "Sneaker ID is required")
+        private Long sneakerId;
+
+        // Each pair becomes its own order, as with single-item orders
+        @Min(value = 1, message = "Quantity must be at least 1")
+        @Max(value = MAX_QUANTITY, message = "Quantity must be at most " + MAX_QUANTITY)
+        private int quantity = 1;
+
+        public Long getSneakerId() { return sneakerId; }
+        public void setSneakerId(Long sneakerId) { this.sneakerId = sneakerId; }
+        public int getQuantity() { return quantity; }
+        public void setQuantity(int quantity) { this.quantity = quantity; }
+    }
+
+    // Getters and Setters
+    public List<Item> getItems() { return items; }
+    public void setItems(List<Item> items) { this.items = items; }
+
+    public String getShippingAddress() { return shippingAddress; }
+    public void setShippingAddress(String shippingAddress) { this.shippingAddress = shippingAddress; }
+
+    public String getPhoneNumber() { return phoneNumber; }
+    public void setPhoneNumber(String phoneNumber) { this.phoneNumber = phoneNumber; }
+}
@@ -0,0 +1,29 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.Order;
+import java.math.BigDecimal;
+import java.util.List;
+
+public class CheckoutResponse {
+    private List<OrderResponse> orders;
+    private int orderCount;
+    private BigDecimal totalAmount;
+
+    public CheckoutResponse() {}
+
+    public CheckoutResponse(List<Order> orders) {
+        this.orders = orders.stream().map(OrderResponse::new).toList();
+        this.orderCount = orders.size();
+        this.totalAmount = orders.stream().map(Order::getTotalAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    // Getters and Setters
+    public List<OrderResponse> getOrders() { return orders; }
+    public void setOrders(List<OrderResponse> orders) { this.orders = orders; }
+
+    public int getOrderCount() { return orderCount; }
+    public void setOrderCount(int orderCount) { this.orderCount = orderCount; }
+
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+}
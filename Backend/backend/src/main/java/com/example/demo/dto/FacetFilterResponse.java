@@ -0,0 +1,33 @@
+package com.example.demo.dto;
+
+import java.util.List;
+import java.util.Map;
+
+public class FacetFilterResponse {
+    private List<SneakerCard> items;
+    private long total;
+    private String nextCursor;
+    private Map<String, Map<String, Long>> facets;
+
+    public FacetFilterResponse() {}
+
+    public FacetFilterResponse(List<SneakerCard> items, long total, String nextCursor, Map<String, Map<String, Long>> facets) {
+        this.items = items;
+        this.total = total;
+        this.nextCursor = nextCursor;
+        this.facets = facets;
+    }
+
+    // Getters and Setters
+    public List<SneakerCard> getItems() { return items; }
+    public void setItems(List<SneakerCard> items) { this.items = items; }
+
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+
+    public Map<String, Map<String, Long>> getFacets() { return facets; }
+    public void setFacets(Map<String, Map<String, Long>> facets) { this.facets = facets; }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.Sneaker;
+import com.example.demo.model.SneakerRating;
+import com.example.demo.service.ThumbnailService;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Compact catalog entry for list and search results. Built directly by JPQL
+ * constructor expressions so no Sneaker entity or image collection is loaded.
+ */
+public class SneakerCard {
+    private Long id;
+    private String name;
+    private String brand;
+    private BigDecimal price;
+    private String size;
+    private String condition;
+    private Integer stock;
+    private String status;
+    private String imageUrl;
+    private String sellerName;
+    private LocalDateTime createdAt;
+    private Double averageRating;
+    private Long reviewCount;
+
+    public SneakerCard() {}
+
+    public SneakerCard(Long id, String name, String brand, BigDecimal price, String size, String condition,
+                       Integer stock, Sneaker.SneakerStatus status, String coverImage, String sellerName,
+                       LocalDateTime createdAt, Long reviewCount, Long ratingSum) {
+        this.id = id;
+        this.name = name;
+        this.brand = brand;
+        this.price = price;
+        this.size = size;
+        this.condition = condition;
+        this.stock = stock;
+        this.status = status != null ? status.name() : null;
+        this.imageUrl = ThumbnailService.toThumbnailUrl(coverImage, ThumbnailService.LISTING_VARIANT);
+        this.sellerName = sellerName;
+        this.createdAt = createdAt;
+        this.averageRating = SneakerRating.average(reviewCount, ratingSum);
+        this.reviewCount = reviewCount != null ? reviewCount : 0L;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getBrand() { return brand; }
+    public void setBrand(String brand) { this.brand = brand; }
+
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
+
+    public String getSize() { return size; }
+    public void setSize(String size) { this.size = size; }
+
+    public String getCondition() { return condition; }
+    public void setCondition(String condition) { this.condition = condition; }
+
+    public Integer getStock() { return stock; }
+    public void setStock(Integer stock) { this.stock = stock; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public String getImageUrl() { return imageUrl; }
+    public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
+
+    public String getSellerName() { return sellerName; }
+    public void setSellerName(String sellerName) { this.sellerName = sellerName; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public Double getAverageRating() { return averageRating; }
+    public void setAverageRating(Double averageRating) { this.averageRating = averageRating; }
+
+    public Long getReviewCount() { return reviewCount; }
+    public void setReviewCount(Long reviewCount) { this.reviewCount = reviewCount; }
+}
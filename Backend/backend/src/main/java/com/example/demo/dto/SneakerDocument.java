@@ -0,0 +1,79 @@
+package com.example.demo.dto;
+
+import com.example.demo.model.Sneaker;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Flat, image-free snapshot of a listing used to (re)build the in-memory
+ * catalog indexes. Loaded with a JPQL constructor expression.
+ */
+public class SneakerDocument {
+    private Long id;
+    private String name;
+    private String brand;
+    private String description;
+    private String color;
+    private String size;
+    private String condition;
+    private BigDecimal price;
+    private Integer stock;
+    private LocalDateTime createdAt;
+
+    public SneakerDocument() {}
+
+    public SneakerDocument(Long id, String name, String brand, String description, String color, String size,
+                           String condition, BigDecimal price, Integer stock, LocalDateTime createdAt) {
+        this.id = id;
+        this.name = name;
+        this.brand = brand;
+        this.description = description;
+        this.color = color;
+        this.size = size;
+        this.condition = condition;
+        this.price = price;
+        this.stock = stock;
+        this.createdAt = createdAt;
+    }
+
+    public static SneakerDocument of(Sneaker sneaker) {
+        return new SneakerDocument(sneaker.getId(), sneaker.getName(), sneaker.getBrand(), sneaker.getDescription(),
+                sneaker.getColor(), sneaker.getSize(), sneaker.getCondition(), sneaker.getPrice(),
+                sneaker.getStock(), sneaker.getCreatedAt());
+    }
+
+    public boolean isInStock() {
+        return stock != null && stock > 0;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getBrand() { return brand; }
+    public void setBrand(String brand) { this.brand = brand; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public String getColor() { return color; }
+    public void setColor(String color) { this.color = color; }
+
+    public String getSize() { return size; }
+    public void setSize(String size) { this.size = size; }
+
+    public String getCondition() { return condition; }
+    public void setCondition(String condition) { this.condition = condition; }
+
+    public BigDecimal getPrice() { return price; }
+    public void setPrice(BigDecimal price) { this.price = price; }
+
+    public Integer getStock() { return stock; }
+    public void setStock(Integer stock) { this.stock = stock; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -1,6 +1,9 @@
 package com.example.demo.dto;
 
 import com.example.demo.model.Sneaker;
+import com.example.demo.model.SneakerRating;
+import com.example.demo.service.ImageStorageService;
+import com.example.demo.service.ThumbnailService;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -20,6 +23,8 @@ public class SneakerResponse {
     private LocalDateTime createdAt;
     private SellerInfo seller;
     private Double averageRating;
+    private Long reviewCount;
+    private List<Long> ratingHistogram;
 
     public static class SellerInfo {
         private Long id;
@@ -39,6 +44,13 @@ public class SneakerResponse {
     public SneakerResponse() {}
 
     public SneakerResponse(Sneaker sneaker) {
+        this(sneaker, null);
+    }
+
+    /**
+     * @param rating the sneaker's review aggregate, or {@code null} when it has no reviews yet
+     */
+    public SneakerResponse(Sneaker sneaker, SneakerRating rating) {
         this.id = sneaker.getId();
         this.name = sneaker.getName();
         this.brand = sneaker.getBrand();
@@ -48,13 +60,34 @@ public class SneakerResponse {
         this.color = sneaker.getColor();
         this.condition = sneaker.getCondition();
         this.stock = sneaker.getStock();
-        this.imageUrls = sneaker.getImageUrls();
+        this.imageUrls = sneaker.getImageUrls().stream()
+                .map(ImageStorageService::toUrl)
+                .toList();
         this.status = sneaker.getStatus().name();
         this.createdAt = sneaker.getCreatedAt();
         if (sneaker.getSeller() != null) {
             this.seller = new SellerInfo(sneaker.getSeller().getId(), sneaker.getSeller().getUsername());
         }
-        this.averageRating = 0.0; // Will be calculated separately if needed
+        if (rating != null) {
+            this.averageRating = rating.getAverage();
+            this.reviewCount = rating.getReviewCount();
+            this.ratingHistogram = rating.getHistogram();
+        } else {
+            this.averageRating = 0.0;
+            this.reviewCount = 0L;
+            this.ratingHistogram = List.of(0L, 0L, 0L, 0L, 0L);
+        }
+    }
+
+    /**
+     * Response for catalog lists: images point at card-sized thumbnails instead of the originals.
+     */
+    public static SneakerResponse forListing(Sneaker sneaker, SneakerRating rating) {
+        SneakerResponse response = new SneakerResponse(sneaker, rating);
+        response.imageUrls = sneaker.getImageUrls().stream()
+                .map(ref -> ThumbnailService.toThumbnailUrl(ref, ThumbnailService.LISTING_VARIANT))
+                .toList();
+        return response;
     }
 
     // Getters and Setters
@@ -99,4 +132,10 @@ public class SneakerResponse {
 
     public Double getAverageRating() { return averageRating; }
     public void setAverageRating(Double averageRating) { this.averageRating = averageRating; }
+
+    public Long getReviewCount() { return reviewCount; }
+    public void setReviewCount(Long reviewCount) { this.reviewCount = reviewCount; }
+
+    public List<Long> getRatingHistogram() { return ratingHistogram; }
+    public void setRatingHistogram(List<Long> ratingHistogram) { this.ratingHistogram = ratingHistogram; }
 }
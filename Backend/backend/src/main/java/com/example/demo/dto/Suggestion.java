@@ -0,0 +1,28 @@
+package com.example.demo.dto;
+
+/**
+ * One typeahead entry: a listing name or brand and how many in-stock listings carry it.
+ */
+public class Suggestion {
+    private String text;
+    private String type;
+    private long listings;
+
+    public Suggestion() {}
+
+    public Suggestion(String text, String type, long listings) {
+        this.text = text;
+        this.type = type;
+        this.listings = listings;
+    }
+
+    // Getters and Setters
+    public String getText() { return text; }
+    public void setText(String text) { this.text = text; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public long getListings() { return listings; }
+    public void setListings(long listings) { this.listings = listings; }
+}
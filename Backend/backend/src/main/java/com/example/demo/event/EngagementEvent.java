@@ -0,0 +1,33 @@
+package com.example.demo.event;
+
+/**
+ * Published when a buyer favorites or orders a listing. TrendingService counts
+ * it once the surrounding transaction commits, so rolled-back actions are not
+ * counted. Detail views are recorded directly since they are not transactional.
+ */
+public class EngagementEvent {
+
+    public enum Type {
+        VIEW, FAVORITE, ORDER
+    }
+
+    private final Type type;
+    private final Long sneakerId;
+
+    private EngagementEvent(Type type, Long sneakerId) {
+        this.type = type;
+        this.sneakerId = sneakerId;
+    }
+
+    public static EngagementEvent favorited(Long sneakerId) {
+        return new EngagementEvent(Type.FAVORITE, sneakerId);
+    }
+
+    public static EngagementEvent ordered(Long sneakerId) {
+        return new EngagementEvent(Type.ORDER, sneakerId);
+    }
+
+    public Type getType() { return type; }
+
+    public Long getSneakerId() { return sneakerId; }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * An outbox row as handed to subscribers by OutboxRelay. Delivery is at
+ * least once and in commit order per aggregate, so subscribers should
+ * tolerate seeing the same id twice.
+ */
+public class OutboxMessage {
+
+    private final Long id;
+    private final String aggregateType;
+    private final Long aggregateId;
+    private final String eventType;
+    private final String payload;
+    private final LocalDateTime createdAt;
+
+    public OutboxMessage(Long id, String aggregateType, Long aggregateId, String eventType,
+                         String payload, LocalDateTime createdAt) {
+        this.id = id;
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.eventType = eventType;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() { return id; }
+
+    public String getAggregateType() { return aggregateType; }
+
+    public Long getAggregateId() { return aggregateId; }
+
+    public String getEventType() { return eventType; }
+
+    // JSON object
+    public String getPayload() { return payload; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+}
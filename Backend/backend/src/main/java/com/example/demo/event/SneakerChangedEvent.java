@@ -0,0 +1,55 @@
+package com.example.demo.event;
+
+import com.example.demo.dto.SneakerDocument;
+
+/**
+ * Published by the services whenever a listing is created, edited, deleted,
+ * has its stock changed or gains or loses a review. In-memory catalog structures listen for it after the
+ * surrounding transaction commits.
+ */
+public class SneakerChangedEvent {
+
+    public enum Type {
+        CREATED, UPDATED, STOCK_CHANGED, RATING_CHANGED, DELETED
+    }
+
+    private final Type type;
+    private final Long sneakerId;
+    private final SneakerDocument document;
+
+    private SneakerChangedEvent(Type type, Long sneakerId, SneakerDocument document) {
+        this.type = type;
+        this.sneakerId = sneakerId;
+        this.document = document;
+    }
+
+    public static SneakerChangedEvent created(SneakerDocument document) {
+        return new SneakerChangedEvent(Type.CREATED, document.getId(), document);
+    }
+
+    public static SneakerChangedEvent updated(SneakerDocument document) {
+        return new SneakerChangedEvent(Type.UPDATED, document.getId(), document);
+    }
+
+    public static SneakerChangedEvent stockChanged(SneakerDocument document) {
+        return new SneakerChangedEvent(Type.STOCK_CHANGED, document.getId(), document);
+    }
+
+    /** Only the review aggregate changed; the listing's own fields did not. */
+    public static SneakerChangedEvent ratingChanged(Long sneakerId) {
+        return new SneakerChangedEvent(Type.RATING_CHANGED, sneakerId, null);
+    }
+
+    public static SneakerChangedEvent deleted(Long sneakerId) {
+        return new SneakerChangedEvent(Type.DELETED, sneakerId, null);
+    }
+
+    public Type getType() { return type; }
+
+    public Long getSneakerId() { return sneakerId; }
+
+    /** Current state of the listing, or {@code null} when it was deleted or only its rating changed. */
+    public SneakerDocument getDocument() { return document; }
+
+    public boolean isDeleted() { return type == Type.DELETED; }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.exception;
+
+/**
+ * Thrown when a request needs an in-memory index that is still being built
+ * after startup. Nothing is wrong with the request, so it is answered with
+ * 503 and a Retry-After rather than 400.
+ */
+public class IndexNotReadyException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    // Building the indexes takes seconds, not minutes
+    public static final int RETRY_AFTER_SECONDS = 5;
+
+    public IndexNotReadyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.demo.exception;
+
+/**
+ * Thrown when an order was accepted but not yet written when the caller
+ * stopped waiting. It may still be placed, so this is not a failure the
+ * client should retry.
+ */
+public class OrderPendingException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public OrderPendingException(String message) {
+        super(message);
+    }
+}
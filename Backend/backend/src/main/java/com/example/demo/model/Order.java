@@ -6,7 +6,12 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders",
+       indexes = {
+           @Index(name = "idx_orders_status_date", columnList = "status, order_date"),
+           @Index(name = "idx_orders_buyer_date", columnList = "buyer_id, order_date"),
+           @Index(name = "idx_orders_seller_date", columnList = "seller_id, order_date")
+       })
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Order {
     @Id
@@ -2,13 +2,17 @@ package com.example.demo.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "sneakers")
+@Table(name = "sneakers", indexes = {
+    @Index(name = "idx_sneaker_created_id", columnList = "created_at, id"),
+    @Index(name = "idx_sneaker_updated", columnList = "updated_at")
+})
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Sneaker {
     @Id
@@ -36,11 +40,19 @@ public class Sneaker {
     @Column(nullable = false)
     private Integer stock = 1;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    // Lazy and batch-loaded: a list of N sneakers costs one image query per 100 rows, not one per row.
+    // image_order keeps the seller's order, so the first image (the cover) is the same on every load
+    @ElementCollection(fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     @CollectionTable(name = "sneaker_images", joinColumns = @JoinColumn(name = "sneaker_id"))
-    @Column(name = "image_url", columnDefinition = "MEDIUMTEXT")
+    @OrderColumn(name = "image_order")
+    @Column(name = "image_url", length = 512)
     private List<String> imageUrls = new ArrayList<>();
 
+    // Denormalized first image so catalog cards never touch sneaker_images
+    @Column(name = "cover_image", length = 512)
+    private String coverImage;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "seller_id", nullable = false)
     @JsonIgnoreProperties({"hibernateLazyInitializer", "handler", "password", "roles"})
@@ -49,6 +61,10 @@ public class Sneaker {
     @Enumerated(EnumType.STRING)
     private SneakerStatus status = SneakerStatus.AVAILABLE;
 
+    // Orders for flash-sale listings are admitted by FlashSaleService instead of OrderService
+    @Column(name = "flash_sale")
+    private Boolean flashSale = false;
+
     @Column(nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
@@ -92,7 +108,13 @@ public class Sneaker {
     public void setStock(Integer stock) { this.stock = stock; }
 
     public List<String> getImageUrls() { return imageUrls; }
-    public void setImageUrls(List<String> imageUrls) { this.imageUrls = imageUrls; }
+    public void setImageUrls(List<String> imageUrls) {
+        this.imageUrls = imageUrls;
+        this.coverImage = imageUrls != null && !imageUrls.isEmpty() ? imageUrls.get(0) : null;
+    }
+
+    public String getCoverImage() { return coverImage; }
+    public void setCoverImage(String coverImage) { this.coverImage = coverImage; }
 
     public User getSeller() { return seller; }
     public void setSeller(User seller) { this.seller = seller; }
@@ -100,6 +122,9 @@ public class Sneaker {
     public SneakerStatus getStatus() { return status; }
     public void setStatus(SneakerStatus status) { this.status = status; }
 
+    public boolean isFlashSale() { return Boolean.TRUE.equals(flashSale); }
+    public void setFlashSale(boolean flashSale) { this.flashSale = flashSale; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
@@ -0,0 +1,53 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Engagement counts for one listing in one time slot. TrendingService keeps
+ * the live counters in memory and adds them to these rows on every flush, so
+ * the trending window survives a restart.
+ */
+@Entity
+@Table(name = "sneaker_engagement",
+       uniqueConstraints = @UniqueConstraint(name = "uk_engagement_sneaker_slot", columnNames = {"sneaker_id", "slot_start"}),
+       indexes = @Index(name = "idx_engagement_slot", columnList = "slot_start"))
+public class SneakerEngagement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "sneaker_id", nullable = false)
+    private Long sneakerId;
+
+    @Column(name = "slot_start", nullable = false)
+    private LocalDateTime slotStart;
+
+    @Column(name = "view_count", nullable = false)
+    private Long viewCount = 0L;
+
+    @Column(name = "favorite_count", nullable = false)
+    private Long favoriteCount = 0L;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount = 0L;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getSneakerId() { return sneakerId; }
+    public void setSneakerId(Long sneakerId) { this.sneakerId = sneakerId; }
+
+    public LocalDateTime getSlotStart() { return slotStart; }
+    public void setSlotStart(LocalDateTime slotStart) { this.slotStart = slotStart; }
+
+    public Long getViewCount() { return viewCount; }
+    public void setViewCount(Long viewCount) { this.viewCount = viewCount; }
+
+    public Long getFavoriteCount() { return favoriteCount; }
+    public void setFavoriteCount(Long favoriteCount) { this.favoriteCount = favoriteCount; }
+
+    public Long getOrderCount() { return orderCount; }
+    public void setOrderCount(Long orderCount) { this.orderCount = orderCount; }
+}
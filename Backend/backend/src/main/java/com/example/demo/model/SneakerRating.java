@@ -0,0 +1,81 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import java.util.List;
+
+/**
+ * Materialized review aggregate for one sneaker, kept in step with the
+ * reviews table by ReviewService so catalog reads never scan reviews.
+ */
+@Entity
+@Table(name = "sneaker_ratings")
+public class SneakerRating {
+    @Id
+    @Column(name = "sneaker_id")
+    private Long sneakerId;
+
+    @Column(name = "review_count", nullable = false)
+    private Long reviewCount = 0L;
+
+    @Column(name = "rating_sum", nullable = false)
+    private Long ratingSum = 0L;
+
+    @Column(name = "stars_1", nullable = false)
+    private Long stars1 = 0L;
+
+    @Column(name = "stars_2", nullable = false)
+    private Long stars2 = 0L;
+
+    @Column(name = "stars_3", nullable = false)
+    private Long stars3 = 0L;
+
+    @Column(name = "stars_4", nullable = false)
+    private Long stars4 = 0L;
+
+    @Column(name = "stars_5", nullable = false)
+    private Long stars5 = 0L;
+
+    /**
+     * Mean rating rounded to two decimals, or 0.0 when there are no reviews.
+     */
+    public static double average(Long reviewCount, Long ratingSum) {
+        if (reviewCount == null || reviewCount <= 0 || ratingSum == null) {
+            return 0.0;
+        }
+        return Math.round(ratingSum * 100.0 / reviewCount) / 100.0;
+    }
+
+    public double getAverage() {
+        return average(reviewCount, ratingSum);
+    }
+
+    /** Review counts for 1 to 5 stars, in that order. */
+    public List<Long> getHistogram() {
+        return List.of(stars1, stars2, stars3, stars4, stars5);
+    }
+
+    // Getters and Setters
+    public Long getSneakerId() { return sneakerId; }
+    public void setSneakerId(Long sneakerId) { this.sneakerId = sneakerId; }
+
+    public Long getReviewCount() { return reviewCount; }
+    public void setReviewCount(Long reviewCount) { this.reviewCount = reviewCount; }
+
+    public Long getRatingSum() { return ratingSum; }
+    public void setRatingSum(Long ratingSum) { this.ratingSum = ratingSum; }
+
+    public Long getStars1() { return stars1; }
+    public void setStars1(Long stars1) { this.stars1 = stars1; }
+
+    public Long getStars2() { return stars2; }
+    public void setStars2(Long stars2) { this.stars2 = stars2; }
+
+    public Long getStars3() { return stars3; }
+    public void setStars3(Long stars3) { this.stars3 = stars3; }
+
+    public Long getStars4() { return stars4; }
+    public void setStars4(Long stars4) { this.stars4 = stars4; }
+
+    public Long getStars5() { return stars5; }
+    public void setStars5(Long stars5) { this.stars5 = stars5; }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Marks a deleted listing so incremental catalog exports can tell partners
+ * to drop it. Kept for export.tombstone-retention-days, then pruned.
+ */
+@Entity
+@Table(name = "sneaker_tombstones", indexes = {
+    @Index(name = "idx_tombstone_deleted", columnList = "deleted_at")
+})
+public class SneakerTombstone {
+    @Id
+    @Column(name = "sneaker_id")
+    private Long sneakerId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    public SneakerTombstone() {}
+
+    public SneakerTombstone(Long sneakerId, LocalDateTime deletedAt) {
+        this.sneakerId = sneakerId;
+        this.deletedAt = deletedAt;
+    }
+
+    // Getters and Setters
+    public Long getSneakerId() { return sneakerId; }
+    public void setSneakerId(Long sneakerId) { this.sneakerId = sneakerId; }
+
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+    public void setDeletedAt(LocalDateTime deletedAt) { this.deletedAt = deletedAt; }
+}
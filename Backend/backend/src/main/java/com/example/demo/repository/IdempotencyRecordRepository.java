@@ -0,0 +1,32 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    /**
+     * Read as a projection so a waiting request sees the row's current state
+     * rather than an entity cached earlier in the same session.
+     */
+    Optional<Claim> findClaimByOwnerAndIdempotencyKey(String owner, String idempotencyKey);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+
+    interface Claim {
+        Long getId();
+        String getRequestHash();
+        Integer getStatusCode();
+        String getResponseBody();
+        LocalDateTime getCreatedAt();
+    }
+}
@@ -2,14 +2,25 @@ package com.example.demo.repository;
 
 import com.example.demo.model.Order;
 import com.example.demo.model.User;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
+    String DETAILS_SELECT = "SELECT o FROM Order o " +
+           "JOIN FETCH o.sneaker " +
+           "JOIN FETCH o.seller " +
+           "JOIN FETCH o.buyer ";
+
     List<Order> findByBuyer(User buyer);
     List<Order> findByStatus(Order.OrderStatus status);
     
@@ -20,4 +31,47 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
            "WHERE o.buyer = :buyer " +
            "ORDER BY o.orderDate DESC")
     List<Order> findByBuyerWithDetails(@Param("buyer") User buyer);
+
+    @Query(DETAILS_SELECT + "WHERE o.seller = :seller ORDER BY o.orderDate DESC")
+    List<Order> findBySellerWithDetails(@Param("seller") User seller);
+
+    // Keyset pages on (orderDate, id), served from idx_orders_buyer_date and idx_orders_seller_date
+    @Query(DETAILS_SELECT + "WHERE o.buyer = :buyer ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findFirstBuyerPage(@Param("buyer") User buyer, Pageable pageable);
+
+    @Query(DETAILS_SELECT + "WHERE o.buyer = :buyer " +
+           "AND (o.orderDate < :orderDate OR (o.orderDate = :orderDate AND o.id < :id)) " +
+           "ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findBuyerPageAfter(@Param("buyer") User buyer, @Param("orderDate") LocalDateTime orderDate,
+                                   @Param("id") Long id, Pageable pageable);
+
+    @Query(DETAILS_SELECT + "WHERE o.seller = :seller ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findFirstSellerPage(@Param("seller") User seller, Pageable pageable);
+
+    @Query(DETAILS_SELECT + "WHERE o.seller = :seller " +
+           "AND (o.orderDate < :orderDate OR (o.orderDate = :orderDate AND o.id < :id)) " +
+           "ORDER BY o.orderDate DESC, o.id DESC")
+    List<Order> findSellerPageAfter(@Param("seller") User seller, @Param("orderDate") LocalDateTime orderDate,
+                                    @Param("id") Long id, Pageable pageable);
+
+    // Served from idx_orders_status_date, oldest first
+    @Query("SELECT o.id FROM Order o WHERE o.status = :status AND o.orderDate < :before ORDER BY o.orderDate, o.id")
+    List<Long> findIdsByStatusBefore(@Param("status") Order.OrderStatus status,
+                                     @Param("before") LocalDateTime before, Pageable pageable);
+
+    // Pages of (id, orderDate) in id order, for reloading deadlines without loading entities
+    @Query("SELECT o.id, o.orderDate FROM Order o WHERE o.status IN :statuses AND o.id > :afterId ORDER BY o.id")
+    List<Object[]> findOrderDatesByStatusIn(@Param("statuses") Collection<Order.OrderStatus> statuses,
+                                            @Param("afterId") Long afterId, Pageable pageable);
+
+    // Locks the rows so the statuses read here are the ones the following update changes
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.id, o.status FROM Order o WHERE o.id IN :ids AND o.status IN :statuses")
+    List<Object[]> lockStatuses(@Param("ids") Collection<Long> ids,
+                                @Param("statuses") Collection<Order.OrderStatus> statuses);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :to WHERE o.id IN :ids AND o.status IN :from")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("from") Collection<Order.OrderStatus> from,
+                     @Param("to") Order.OrderStatus to);
 }
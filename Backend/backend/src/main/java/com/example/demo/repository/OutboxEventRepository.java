@@ -0,0 +1,66 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Ids of up to {@code limit} rows this relay may deliver now: pending,
+     * not parked, not leased, and with no earlier event of the same
+     * aggregate that is leased or parked. The rows are locked, skipping any
+     * another relay is claiming, until the caller's transaction leases them.
+     */
+    @Query(value = "SELECT e.id FROM outbox_events e " +
+                   "WHERE e.published_at IS NULL AND e.parked_at IS NULL " +
+                   "AND (e.lease_until IS NULL OR e.lease_until < :now) " +
+                   "AND NOT EXISTS (SELECT 1 FROM outbox_events p " +
+                   "WHERE p.aggregate_type = e.aggregate_type AND p.aggregate_id = e.aggregate_id " +
+                   "AND p.published_at IS NULL AND p.id < e.id " +
+                   "AND (p.parked_at IS NOT NULL OR p.lease_until >= :now)) " +
+                   "ORDER BY e.id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockClaimable(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Query("SELECT e FROM OutboxEvent e WHERE e.id IN :ids ORDER BY e.id")
+    List<OutboxEvent> findByIds(@Param("ids") Collection<Long> ids);
+
+    long countByPublishedAtIsNull();
+
+    long countByPublishedAtIsNullAndParkedAtIsNotNull();
+
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.publishedAt IS NULL")
+    LocalDateTime findOldestPendingCreatedAt();
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.publishedAt = :now WHERE e.id IN :ids")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.leaseUntil = :until WHERE e.id IN :ids")
+    int lease(@Param("ids") Collection<Long> ids, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1, e.leaseUntil = :until WHERE e.id = :id")
+    int retryAt(@Param("id") Long id, @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1, e.parkedAt = :now, e.leaseUntil = NULL WHERE e.id IN :ids")
+    int park(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.parkedAt = NULL, e.attempts = 0, e.leaseUntil = NULL " +
+           "WHERE e.publishedAt IS NULL AND e.parkedAt IS NOT NULL")
+    int unparkAll();
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+}
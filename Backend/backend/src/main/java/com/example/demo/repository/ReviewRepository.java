@@ -21,4 +21,8 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
            "WHERE r.sneaker = :sneaker " +
            "ORDER BY r.createdAt DESC")
     List<Review> findBySneakerWithUser(@Param("sneaker") Sneaker sneaker);
+
+    // Reviews are never edited, so (count, newest id) changes whenever the list does
+    @Query("SELECT CONCAT(COUNT(r), '-', COALESCE(MAX(r.id), 0)) FROM Review r WHERE r.sneaker.id = :sneakerId")
+    String findVersionBySneakerId(@Param("sneakerId") Long sneakerId);
 }
@@ -0,0 +1,20 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.SneakerEngagement;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SneakerEngagementRepository extends JpaRepository<SneakerEngagement, Long> {
+
+    List<SneakerEngagement> findBySlotStartGreaterThanEqualOrderBySlotStart(LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM SneakerEngagement e WHERE e.sneakerId = :sneakerId")
+    int deleteBySneakerId(@Param("sneakerId") Long sneakerId);
+}
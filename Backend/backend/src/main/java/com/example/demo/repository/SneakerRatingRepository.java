@@ -0,0 +1,54 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.SneakerRating;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SneakerRatingRepository extends JpaRepository<SneakerRating, Long> {
+
+    // Single-statement upsert so two first reviews racing on a sneaker cannot lose a count
+    @Modifying
+    @Query(value = "INSERT INTO sneaker_ratings " +
+           "(sneaker_id, review_count, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5) " +
+           "VALUES (:sneakerId, 1, :rating, " +
+           "CASE WHEN :rating = 1 THEN 1 ELSE 0 END, CASE WHEN :rating = 2 THEN 1 ELSE 0 END, " +
+           "CASE WHEN :rating = 3 THEN 1 ELSE 0 END, CASE WHEN :rating = 4 THEN 1 ELSE 0 END, " +
+           "CASE WHEN :rating = 5 THEN 1 ELSE 0 END) " +
+           "ON DUPLICATE KEY UPDATE review_count = review_count + 1, rating_sum = rating_sum + :rating, " +
+           "stars_1 = stars_1 + CASE WHEN :rating = 1 THEN 1 ELSE 0 END, " +
+           "stars_2 = stars_2 + CASE WHEN :rating = 2 THEN 1 ELSE 0 END, " +
+           "stars_3 = stars_3 + CASE WHEN :rating = 3 THEN 1 ELSE 0 END, " +
+           "stars_4 = stars_4 + CASE WHEN :rating = 4 THEN 1 ELSE 0 END, " +
+           "stars_5 = stars_5 + CASE WHEN :rating = 5 THEN 1 ELSE 0 END",
+           nativeQuery = true)
+    void addRating(@Param("sneakerId") Long sneakerId, @Param("rating") int rating);
+
+    @Modifying
+    @Query("UPDATE SneakerRating r SET r.reviewCount = r.reviewCount - 1, r.ratingSum = r.ratingSum - :rating, " +
+           "r.stars1 = r.stars1 - CASE WHEN :rating = 1 THEN 1 ELSE 0 END, " +
+           "r.stars2 = r.stars2 - CASE WHEN :rating = 2 THEN 1 ELSE 0 END, " +
+           "r.stars3 = r.stars3 - CASE WHEN :rating = 3 THEN 1 ELSE 0 END, " +
+           "r.stars4 = r.stars4 - CASE WHEN :rating = 4 THEN 1 ELSE 0 END, " +
+           "r.stars5 = r.stars5 - CASE WHEN :rating = 5 THEN 1 ELSE 0 END " +
+           "WHERE r.sneakerId = :sneakerId AND r.reviewCount > 0")
+    int removeRating(@Param("sneakerId") Long sneakerId, @Param("rating") int rating);
+
+    @Modifying
+    @Query(value = "DELETE FROM sneaker_ratings", nativeQuery = true)
+    int deleteAllRatings();
+
+    @Modifying
+    @Query(value = "INSERT INTO sneaker_ratings " +
+           "(sneaker_id, review_count, rating_sum, stars_1, stars_2, stars_3, stars_4, stars_5) " +
+           "SELECT sneaker_id, COUNT(*), SUM(rating), " +
+           "SUM(CASE WHEN rating = 1 THEN 1 ELSE 0 END), SUM(CASE WHEN rating = 2 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN rating = 3 THEN 1 ELSE 0 END), SUM(CASE WHEN rating = 4 THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN rating = 5 THEN 1 ELSE 0 END) " +
+           "FROM reviews GROUP BY sneaker_id",
+           nativeQuery = true)
+    int insertAllFromReviews();
+}
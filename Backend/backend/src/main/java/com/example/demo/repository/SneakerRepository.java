@@ -1,10 +1,16 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.SneakerCard;
+import com.example.demo.dto.SneakerDocument;
 import com.example.demo.model.Sneaker;
 import com.example.demo.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,9 +18,44 @@ import java.util.Optional;
 public interface SneakerRepository extends JpaRepository<Sneaker, Long> {
     @Query("SELECT s FROM Sneaker s JOIN FETCH s.seller WHERE s.stock > 0")
     List<Sneaker> findAllWithSeller();
+
+    String CARD_SELECT = "SELECT new com.example.demo.dto.SneakerCard(" +
+           "s.id, s.name, s.brand, s.price, s.size, s.condition, s.stock, s.status, s.coverImage, u.username, s.createdAt, " +
+           "r.reviewCount, r.ratingSum) " +
+           "FROM Sneaker s JOIN s.seller u LEFT JOIN SneakerRating r ON r.sneakerId = s.id ";
+
+    @Query(CARD_SELECT + "WHERE s.stock > 0 " +
+           "ORDER BY s.createdAt DESC, s.id DESC")
+    List<SneakerCard> findFirstCardPage(Pageable pageable);
+
+    // Every available listing, newest first: what a search with an empty query has always returned
+    @Query(CARD_SELECT + "WHERE s.stock > 0 " +
+           "ORDER BY s.createdAt DESC, s.id DESC")
+    List<SneakerCard> findAllCards();
+
+    @Query(CARD_SELECT + "WHERE s.stock > 0 " +
+           "AND (s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id)) " +
+           "ORDER BY s.createdAt DESC, s.id DESC")
+    List<SneakerCard> findCardPageAfter(LocalDateTime createdAt, Long id, Pageable pageable);
     
     @Query("SELECT s FROM Sneaker s JOIN FETCH s.seller WHERE s.id = :id")
     Optional<Sneaker> findByIdWithSeller(Long id);
+
+    @Query("SELECT s FROM Sneaker s JOIN FETCH s.seller WHERE s.id IN :ids ORDER BY s.id")
+    List<Sneaker> findAllByIdWithSeller(Collection<Long> ids);
+
+    // Rows are [Sneaker, SneakerRating or null]; the aggregate rides along in the same query
+    @Query("SELECT s, r FROM Sneaker s JOIN FETCH s.seller LEFT JOIN SneakerRating r ON r.sneakerId = s.id " +
+           "WHERE s.stock > 0")
+    List<Object[]> findAllWithSellerAndRating();
+
+    @Query("SELECT s, r FROM Sneaker s JOIN FETCH s.seller LEFT JOIN SneakerRating r ON r.sneakerId = s.id " +
+           "WHERE s.id = :id")
+    List<Object[]> findByIdWithSellerAndRating(Long id);
+
+    @Query("SELECT s, r FROM Sneaker s JOIN FETCH s.seller LEFT JOIN SneakerRating r ON r.sneakerId = s.id " +
+           "WHERE s.seller = :seller")
+    List<Object[]> findBySellerWithSellerAndRating(User seller);
     
     @Query("SELECT s FROM Sneaker s JOIN FETCH s.seller WHERE s.seller = :seller")
     List<Sneaker> findBySellerWithSeller(User seller);
@@ -27,4 +68,57 @@ public interface SneakerRepository extends JpaRepository<Sneaker, Long> {
     
     @Query("SELECT s FROM Sneaker s WHERE s.name LIKE %:name% AND s.stock > 0")
     List<Sneaker> findByNameContainingIgnoreCase(String name);
+
+    @Query(CARD_SELECT + "WHERE s.id IN :ids AND s.stock > 0")
+    List<SneakerCard> findCardsByIds(Collection<Long> ids);
+
+    @Query("SELECT new com.example.demo.dto.SneakerDocument(" +
+           "s.id, s.name, s.brand, s.description, s.color, s.size, s.condition, s.price, s.stock, s.createdAt) " +
+           "FROM Sneaker s WHERE s.stock > 0 AND s.id > :id ORDER BY s.id")
+    List<SneakerDocument> findDocumentsAfter(Long id, Pageable pageable);
+
+    /**
+     * Takes {@code quantity} pairs if that many are left, marking the listing
+     * SOLD when they were the last. Returns 0 when the listing is unavailable
+     * or has too few pairs. Status is assigned first because MySQL evaluates
+     * SET left to right, so it must still see the old stock.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Sneaker s SET s.status = CASE WHEN s.stock = :quantity THEN :sold ELSE s.status END, " +
+           "s.stock = s.stock - :quantity, s.updatedAt = :now " +
+           "WHERE s.id = :id AND s.stock >= :quantity AND s.status = :available")
+    int decrementStock(Long id, int quantity, Sneaker.SneakerStatus available, Sneaker.SneakerStatus sold,
+                       LocalDateTime now);
+
+    /** Bumps updated_at when a derived field changes, such as the rating, so incremental exports pick it up. */
+    @Modifying
+    @Query("UPDATE Sneaker s SET s.updatedAt = :now WHERE s.id = :id")
+    int touch(Long id, LocalDateTime now);
+
+    @Modifying
+    @Query(value = "UPDATE sneakers SET updated_at = :now WHERE id IN (SELECT sneaker_id FROM sneaker_ratings)",
+           nativeQuery = true)
+    int touchRated(LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Sneaker s SET s.flashSale = :flashSale WHERE s.id = :id")
+    int setFlashSale(Long id, boolean flashSale);
+
+    @Query("SELECT s.id FROM Sneaker s WHERE s.flashSale = true")
+    List<Long> findFlashSaleIds();
+
+    @Query("SELECT new com.example.demo.dto.SneakerDocument(" +
+           "s.id, s.name, s.brand, s.description, s.color, s.size, s.condition, s.price, s.stock, s.createdAt) " +
+           "FROM Sneaker s WHERE s.id IN :ids")
+    List<SneakerDocument> findDocumentsByIds(Collection<Long> ids);
+
+    // Rows are [sneaker id, seller id]
+    @Query("SELECT s.id, s.seller.id FROM Sneaker s WHERE s.id IN :ids")
+    List<Object[]> findSellerIdsByIds(Collection<Long> ids);
+
+    @Query(CARD_SELECT + "WHERE s.brand LIKE %:brand% AND s.stock > 0")
+    List<SneakerCard> findCardsByBrandContaining(String brand);
+
+    @Query(CARD_SELECT + "WHERE s.name LIKE %:name% AND s.stock > 0")
+    List<SneakerCard> findCardsByNameContaining(String name);
 }
@@ -0,0 +1,17 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.SneakerTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+
+@Repository
+public interface SneakerTombstoneRepository extends JpaRepository<SneakerTombstone, Long> {
+
+    @Modifying
+    @Query("DELETE FROM SneakerTombstone t WHERE t.deletedAt < :before")
+    int deleteDeletedBefore(@Param("before") LocalDateTime before);
+}
@@ -3,6 +3,7 @@ package com.example.demo.security;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -24,12 +25,20 @@ public class SecurityConfig {
         http
             .csrf(csrf -> csrf.disable())
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/api/auth/**", 
-                                "/api/sneakers/search/**", 
+                .requestMatchers("/api/auth/**").permitAll()
+                // Public catalog reads only; ids are numeric so /export, /import, /bulk and friends never match {id}
+                .requestMatchers(HttpMethod.GET,
+                                "/api/sneakers/search/**",
                                 "/api/sneakers/all",
                                 "/api/sneakers/available",
-                                "/api/sneakers/{id}",
-                                "/api/reviews/sneaker/**").permitAll()
+                                "/api/sneakers/filter",
+                                "/api/sneakers/suggest",
+                                "/api/sneakers/trending",
+                                "/api/sneakers/{id:\\d+}",
+                                "/api/sneakers/{id:\\d+}/similar",
+                                "/api/reviews/sneaker/**",
+                                "/api/images/**").permitAll()
+                .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
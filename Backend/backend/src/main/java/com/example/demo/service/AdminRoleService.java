@@ -0,0 +1,62 @@
+package com.example.demo.service;
+
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Grants ROLE_ADMIN on startup to the accounts listed in admin.usernames,
+ * so /api/admin/** is reachable without editing the database. Only accounts
+ * that already exist are promoted; sign-up never grants the role, so nobody
+ * can claim a listed name by registering it first. Removing a name from the
+ * list does not revoke the role.
+ */
+@Service
+public class AdminRoleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminRoleService.class);
+
+    public static final String ROLE_ADMIN = "ROLE_ADMIN";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final Set<String> adminUsernames;
+
+    public AdminRoleService(@Value("${admin.usernames:}") String adminUsernames) {
+        this.adminUsernames = Arrays.stream(adminUsernames.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void grantConfiguredAdmins() {
+        if (adminUsernames.isEmpty()) {
+            return;
+        }
+        Set<String> missing = new HashSet<>(adminUsernames);
+        for (User user : userRepository.findByUsernameIn(adminUsernames)) {
+            missing.remove(user.getUsername());
+            if (user.getRoles().add(ROLE_ADMIN)) {
+                userRepository.save(user);
+                logger.info("Granted {} to {}", ROLE_ADMIN, user.getUsername());
+            }
+        }
+        if (!missing.isEmpty()) {
+            logger.warn("No account for admin.usernames {}; register them and restart to grant {}", missing, ROLE_ADMIN);
+        }
+    }
+}
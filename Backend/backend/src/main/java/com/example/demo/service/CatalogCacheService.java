@@ -0,0 +1,257 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.KeysetCursor;
+import com.example.demo.dto.SneakerCard;
+import com.example.demo.dto.SneakerResponse;
+import com.example.demo.event.SneakerChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache in front of the public SneakerService read paths. It is
+ * deliberately not transactional, so a hit never borrows a JDBC connection.
+ * Values are kept serialized with a content-hash ETag so hits and 304s skip
+ * Jackson entirely. Eviction is Caffeine's W-TinyLFU, bounded by serialized
+ * size and a TTL, and entries are invalidated from SneakerChangedEvent after
+ * commit.
+ */
+@Service
+public class CatalogCacheService {
+
+    private enum Kind { SNEAKER, PAGE, LISTING, SEARCH, SIMILAR, TRENDING }
+
+    private record Key(Kind kind, Object first, Object second) {}
+
+    /**
+     * A cached response: the value, its JSON serialization and a strong ETag
+     * derived from those exact bytes.
+     */
+    public record Cached<T>(T value, byte[] json, String etag) {}
+
+    /**
+     * Cached value plus what it depends on: the listing ids it contains and,
+     * for catalog pages, the createdAt range the page covers.
+     */
+    private record Entry(Cached<?> cached, Set<Long> ids, LocalDateTime newest, LocalDateTime oldest) {
+        int weight() {
+            return ENTRY_OVERHEAD + cached.json().length;
+        }
+
+        boolean covers(LocalDateTime createdAt) {
+            return createdAt == null
+                    || ((newest == null || !createdAt.isAfter(newest)) && (oldest == null || !createdAt.isBefore(oldest)));
+        }
+    }
+
+    private static final int ENTRY_OVERHEAD = 256;
+
+    @Autowired
+    private SneakerService sneakerService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${catalog.cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${catalog.cache.max-weight-bytes:67108864}")
+    private long maxWeightBytes;
+
+    private Cache<Key, Entry> cache;
+
+    // Reverse index from listing id to the cached entries that contain it
+    private final ConcurrentHashMap<Long, Set<Key>> keysBySneaker = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation so loads that raced a change are not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeightBytes)
+                .weigher((Key key, Entry entry) -> entry.weight())
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .removalListener((Key key, Entry entry, RemovalCause cause) -> unlink(key, entry, cause))
+                .build();
+    }
+
+    public Cached<SneakerResponse> getSneaker(Long id) {
+        return load(new Key(Kind.SNEAKER, id, null), () -> {
+            return new Entry(serialize(sneakerService.getSneakerDetail(id)), Set.of(), null, null);
+        });
+    }
+
+    public Cached<CursorPage<SneakerCard>> getAvailablePage(String cursor, Integer limit) {
+        return load(new Key(Kind.PAGE, cursor, limit), () -> {
+            CursorPage<SneakerCard> page = sneakerService.getAvailableSneakersPage(cursor, limit);
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            List<SneakerCard> items = page.getItems();
+            LocalDateTime newest = after != null ? after.timestamp() : null;
+            LocalDateTime oldest = page.isHasMore() && !items.isEmpty() ? items.get(items.size() - 1).getCreatedAt() : null;
+            return new Entry(serialize(page), idsOf(items), newest, oldest);
+        });
+    }
+
+    /**
+     * Unpaged catalog list; depends on every listing, so any change drops it.
+     */
+    public Cached<List<SneakerResponse>> getAvailableListing() {
+        return load(new Key(Kind.LISTING, null, null), () -> {
+            return new Entry(serialize(sneakerService.getAvailableListing()), Set.of(), null, null);
+        });
+    }
+
+    public Cached<List<SneakerCard>> search(String mode, String query, Supplier<List<SneakerCard>> loader) {
+        String normalized = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        return load(new Key(Kind.SEARCH, mode, normalized), () -> {
+            List<SneakerCard> results = loader.get();
+            return new Entry(serialize(results), idsOf(results), null, null);
+        });
+    }
+
+    /**
+     * Recommendations for a listing; dropped when the listing itself or any of
+     * the recommended ones changes, and whenever a listing is added or edited.
+     */
+    public Cached<List<SneakerCard>> getSimilar(Long id, Integer limit) {
+        // Clamp first, so limit=10000 or a missing limit share the entry of the size actually served
+        int size = sneakerService.resolveSimilarLimit(limit);
+        return load(new Key(Kind.SIMILAR, id, size), () -> {
+            List<SneakerCard> results = sneakerService.getSimilar(id, size);
+            Set<Long> ids = new HashSet<>(idsOf(results));
+            ids.add(id);
+            return new Entry(serialize(results), ids, null, null);
+        });
+    }
+
+    /**
+     * Trending rail; the ranking itself only moves on each trending flush, so
+     * the TTL bounds how far behind it can be.
+     */
+    public Cached<List<SneakerCard>> getTrending(Integer limit) {
+        int size = sneakerService.resolvePageSize(limit);
+        return load(new Key(Kind.TRENDING, size, null), () -> {
+            List<SneakerCard> results = sneakerService.getTrending(size);
+            return new Entry(serialize(results), idsOf(results), null, null);
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSneakerChanged(SneakerChangedEvent event) {
+        generation.incrementAndGet();
+        Long id = event.getSneakerId();
+        cache.invalidate(new Key(Kind.SNEAKER, id, null));
+        Set<Key> containing = keysBySneaker.remove(id);
+        if (containing != null) {
+            cache.invalidateAll(containing);
+        }
+
+        boolean textOrPositionChanged = event.getType() == SneakerChangedEvent.Type.CREATED
+                || event.getType() == SneakerChangedEvent.Type.UPDATED;
+        LocalDateTime createdAt = event.getDocument() != null ? event.getDocument().getCreatedAt() : null;
+        cache.asMap().entrySet().removeIf(entry -> switch (entry.getKey().kind()) {
+            case LISTING -> true;
+            // The listing may now match searches or (re)appear on the page covering its position
+            case SEARCH, SIMILAR -> textOrPositionChanged;
+            case PAGE -> textOrPositionChanged && entry.getValue().covers(createdAt);
+            case SNEAKER, TRENDING -> false;
+        });
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        result.put("evictionWeight", stats.evictionWeight());
+        result.put("loadFailureCount", stats.loadFailureCount());
+        result.put("entries", cache.estimatedSize());
+        cache.policy().eviction().ifPresent(eviction -> {
+            result.put("weightedSize", eviction.weightedSize().orElse(0L));
+            result.put("maximumWeight", eviction.getMaximum());
+        });
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Cached<T> load(Key key, Supplier<Entry> loader) {
+        long before = generation.get();
+        Entry entry = cache.get(key, k -> {
+            Entry loaded = loader.get();
+            for (Long id : loaded.ids()) {
+                keysBySneaker.computeIfAbsent(id, i -> ConcurrentHashMap.newKeySet()).add(k);
+            }
+            return loaded;
+        });
+        if (generation.get() != before) {
+            // A listing changed while this value was being read; serve it once but do not keep it
+            cache.invalidate(key);
+        }
+        return (Cached<T>) entry.cached();
+    }
+
+    private <T> Cached<T> serialize(T value) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(value);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            String etag = "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+            return new Cached<>(value, json, etag);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize catalog response", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void unlink(Key key, Entry entry, RemovalCause cause) {
+        if (entry == null || cause == RemovalCause.REPLACED || cache.asMap().containsKey(key)) {
+            return;
+        }
+        for (Long id : entry.ids()) {
+            Set<Key> keys = keysBySneaker.get(id);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysBySneaker.remove(id, keys);
+                }
+            }
+        }
+    }
+
+    private static Set<Long> idsOf(List<SneakerCard> cards) {
+        return cards.stream().map(SneakerCard::getId).collect(Collectors.toUnmodifiableSet());
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.demo.service;
+
+import com.example.demo.model.SneakerRating;
+import com.example.demo.repository.SneakerTombstoneRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the catalog as NDJSON straight from a forward-only JDBC result set.
+ * Image rows are joined in and folded per listing as they arrive, so memory
+ * stays constant no matter how large the catalog is.
+ */
+@Service
+public class CatalogExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogExportService.class);
+
+    private static final String EXPORT_SELECT =
+            "SELECT s.id, s.name, s.brand, s.description, s.price, s.size, s.color, s.`condition`, s.stock, " +
+            "s.status, s.created_at, s.updated_at, u.id AS seller_id, u.username, " +
+            "r.review_count, r.rating_sum, si.image_url " +
+            "FROM sneakers s JOIN users u ON u.id = s.seller_id " +
+            "LEFT JOIN sneaker_ratings r ON r.sneaker_id = s.id " +
+            "LEFT JOIN sneaker_images si ON si.sneaker_id = s.id ";
+
+    // Full snapshots mirror /available; incremental pulls also return sold-out rows so consumers can drop them
+    private static final String FULL_EXPORT = EXPORT_SELECT + "WHERE s.stock > 0 ORDER BY s.id, si.image_order";
+
+    private static final String INCREMENTAL_EXPORT = EXPORT_SELECT +
+            "WHERE s.updated_at > ? OR (s.updated_at IS NULL AND s.created_at > ?) ORDER BY s.id, si.image_order";
+
+    private static final String DELETED_SINCE =
+            "SELECT sneaker_id, deleted_at FROM sneaker_tombstones WHERE deleted_at > ? ORDER BY sneaker_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // MySQL Connector/J only streams row by row when the fetch size is Integer.MIN_VALUE
+    @Value("${export.fetch-size:-2147483648}")
+    private int fetchSize;
+
+    @Value("${export.tombstone-retention-days:30}")
+    private long tombstoneRetentionDays;
+
+    @Autowired
+    private SneakerTombstoneRepository sneakerTombstoneRepository;
+
+    /**
+     * Writes one JSON object per listing, ordered by id. With {@code since},
+     * only listings created or updated after that instant are written, sold-out
+     * ones included with {@code "available": false}, followed by a
+     * {@code {"id", "deleted": true, "deletedAt"}} line for each listing deleted
+     * since then. A {@code since} older than the tombstone retention can miss
+     * deletions; such clients should take a full export instead.
+     *
+     * @return number of lines written
+     */
+    public long export(LocalDateTime since, OutputStream output) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output, JsonEncoding.UTF8);
+        // Each object is terminated by a newline below instead of Jackson's default space separator
+        generator.setRootValueSeparator(null);
+        ListingWriter writer = new ListingWriter(generator);
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        since == null ? FULL_EXPORT : INCREMENTAL_EXPORT,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                if (since != null) {
+                    statement.setTimestamp(1, Timestamp.valueOf(since));
+                    statement.setTimestamp(2, Timestamp.valueOf(since));
+                }
+                return statement;
+            }, writer);
+            writer.finish();
+            if (since != null) {
+                jdbcTemplate.query(DELETED_SINCE, writer::writeDeletion, Timestamp.valueOf(since));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.flush();
+        return writer.written;
+    }
+
+    @Scheduled(fixedRate = 3600000)
+    @Transactional
+    public void pruneTombstones() {
+        int removed = sneakerTombstoneRepository.deleteDeletedBefore(LocalDateTime.now().minusDays(tombstoneRetentionDays));
+        if (removed > 0) {
+            logger.debug("Pruned {} sneaker tombstones", removed);
+        }
+    }
+
+    private record Listing(long id, String name, String brand, String description, BigDecimal price,
+                           String size, String color, String condition, int stock, String status,
+                           Timestamp createdAt, Timestamp updatedAt, long sellerId, String sellerName,
+                           long reviewCount, long ratingSum) {}
+
+    /**
+     * Folds consecutive rows of the same listing (one per image) into a single
+     * JSON line. Only the listing currently being read is held in memory.
+     */
+    private static final class ListingWriter implements RowCallbackHandler {
+        private final JsonGenerator generator;
+        private final List<String> imageUrls = new ArrayList<>();
+        private Listing current;
+        private long written;
+
+        ListingWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong("id");
+            if (current == null || current.id() != id) {
+                finish();
+                // getLong maps SQL NULL to 0, which is what a listing without reviews should report
+                current = new Listing(id, rs.getString("name"), rs.getString("brand"), rs.getString("description"),
+                        rs.getBigDecimal("price"), rs.getString("size"), rs.getString("color"),
+                        rs.getString("condition"), rs.getInt("stock"), rs.getString("status"),
+                        rs.getTimestamp("created_at"), rs.getTimestamp("updated_at"),
+                        rs.getLong("seller_id"), rs.getString("username"),
+                        rs.getLong("review_count"), rs.getLong("rating_sum"));
+            }
+            String imageUrl = rs.getString("image_url");
+            if (imageUrl != null) {
+                imageUrls.add(ImageStorageService.toUrl(imageUrl));
+            }
+        }
+
+        void finish() {
+            if (current == null) {
+                return;
+            }
+            try {
+                generator.writeStartObject();
+                generator.writeNumberField("id", current.id());
+                generator.writeStringField("name", current.name());
+                generator.writeStringField("brand", current.brand());
+                generator.writeStringField("description", current.description());
+                generator.writeNumberField("price", current.price());
+                generator.writeStringField("size", current.size());
+                generator.writeStringField("color", current.color());
+                generator.writeStringField("condition", current.condition());
+                generator.writeNumberField("stock", current.stock());
+                generator.writeStringField("status", current.status());
+                generator.writeBooleanField("available", current.stock() > 0 && "AVAILABLE".equals(current.status()));
+                generator.writeBooleanField("deleted", false);
+                generator.writeArrayFieldStart("imageUrls");
+                for (String imageUrl : imageUrls) {
+                    generator.writeString(imageUrl);
+                }
+                generator.writeEndArray();
+                generator.writeObjectFieldStart("seller");
+                generator.writeNumberField("id", current.sellerId());
+                generator.writeStringField("username", current.sellerName());
+                generator.writeEndObject();
+                generator.writeNumberField("averageRating", SneakerRating.average(current.reviewCount(), current.ratingSum()));
+                generator.writeNumberField("reviewCount", current.reviewCount());
+                writeTimestamp("createdAt", current.createdAt());
+                writeTimestamp("updatedAt", current.updatedAt());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            written++;
+            current = null;
+            imageUrls.clear();
+        }
+
+        void writeDeletion(ResultSet rs) throws SQLException {
+            try {
+                generator.writeStartObject();
+                generator.writeNumberField("id", rs.getLong("sneaker_id"));
+                generator.writeBooleanField("deleted", true);
+                writeTimestamp("deletedAt", rs.getTimestamp("deleted_at"));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            written++;
+        }
+
+        private void writeTimestamp(String field, Timestamp value) throws IOException {
+            if (value == null) {
+                generator.writeNullField(field);
+            } else {
+                generator.writeStringField(field, value.toLocalDateTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            }
+        }
+    }
+}
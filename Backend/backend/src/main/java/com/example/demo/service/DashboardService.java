@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.CursorPage;
 import com.example.demo.dto.DashboardStats;
 import com.example.demo.model.Order;
 import com.example.demo.model.Sneaker;
@@ -26,6 +27,9 @@ public class DashboardService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private OrderService orderService;
+
     public DashboardStats getSellerDashboard() {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
         User seller = userRepository.findByUsername(username)
@@ -63,8 +67,10 @@ public class DashboardService {
         User seller = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        return orderRepository.findAll().stream()
-                .filter(o -> o.getSneaker().getSeller().getId().equals(seller.getId()))
-                .toList();
+        return orderRepository.findBySellerWithDetails(seller);
+    }
+
+    public CursorPage<Order> getSellerOrdersPage(String cursor, Integer limit) {
+        return orderService.getSellerOrdersPage(cursor, limit);
     }
 }
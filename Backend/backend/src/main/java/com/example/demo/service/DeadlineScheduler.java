@@ -0,0 +1,166 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fires per-entity deadlines, such as an order's auto-delivery, close to the
+ * moment they fall due instead of waiting for a periodic scan. Deadlines
+ * live in a {@link TimingWheel} keyed by kind and id. Each kind registers a
+ * handler once; due ids are handed to it in batches on a single scheduler
+ * thread. The wheel is memory only, so every kind must be able to reload its
+ * deadlines from the database on startup, and handlers must re-check state
+ * because a deadline can outlive the change it was registered for.
+ */
+@Service
+public class DeadlineScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadlineScheduler.class);
+
+    @FunctionalInterface
+    public interface Handler {
+        void fire(List<Long> ids);
+    }
+
+    private record Key(String kind, Long id) {}
+
+    @Value("${deadlines.tick-millis:1000}")
+    private long tickMillis;
+
+    @Value("${deadlines.batch-size:500}")
+    private int batchSize;
+
+    @Value("${deadlines.retry-delay-seconds:30}")
+    private long retryDelaySeconds;
+
+    private final Map<String, Handler> handlers = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private TimingWheel<Key> wheel;
+    private final Map<Key, TimingWheel.Timer<Key>> timers = new HashMap<>();
+    private List<Key> due = new ArrayList<>();
+
+    private ScheduledExecutorService ticker;
+
+    private final AtomicLong fired = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long maxDispatchMillis;
+
+    @PostConstruct
+    public void init() {
+        wheel = new TimingWheel<>(tickMillis, System.currentTimeMillis());
+        ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "deadline-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleWithFixedDelay(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Nothing is lost: every kind reloads its deadlines on the next start
+        ticker.shutdownNow();
+    }
+
+    public void register(String kind, Handler handler) {
+        handlers.put(kind, handler);
+    }
+
+    /** Schedules or moves the deadline for {@code id}. A past deadline fires on the next tick. */
+    public synchronized void schedule(String kind, Long id, LocalDateTime deadline) {
+        Key key = new Key(kind, id);
+        TimingWheel.Timer<Key> previous = timers.remove(key);
+        if (previous != null) {
+            wheel.cancel(previous);
+        }
+        long millis = deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        int before = due.size();
+        TimingWheel.Timer<Key> timer = wheel.add(key, millis, due);
+        if (due.size() == before) {
+            timers.put(key, timer);
+        }
+    }
+
+    public synchronized void cancel(String kind, Long id) {
+        TimingWheel.Timer<Key> timer = timers.remove(new Key(kind, id));
+        if (timer != null) {
+            wheel.cancel(timer);
+        }
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("scheduled", wheel.size());
+        stats.put("due", due.size());
+        stats.put("fired", fired.get());
+        stats.put("failed", failed.get());
+        stats.put("maxDispatchMillis", maxDispatchMillis);
+        stats.put("kinds", new ArrayList<>(handlers.keySet()));
+        return stats;
+    }
+
+    void tick() {
+        long now = System.currentTimeMillis();
+        List<Key> ready;
+        synchronized (this) {
+            wheel.advanceTo(now, due);
+            ready = due;
+            due = new ArrayList<>();
+            for (Key key : ready) {
+                // Keep a timer that was scheduled again after this one expired
+                timers.computeIfPresent(key, (k, timer) -> timer.cancelled ? null : timer);
+            }
+        }
+        if (ready.isEmpty()) {
+            return;
+        }
+        Map<String, List<Long>> byKind = new LinkedHashMap<>();
+        for (Key key : ready) {
+            byKind.computeIfAbsent(key.kind(), kind -> new ArrayList<>()).add(key.id());
+        }
+        for (Map.Entry<String, List<Long>> entry : byKind.entrySet()) {
+            dispatch(entry.getKey(), entry.getValue());
+        }
+        maxDispatchMillis = Math.max(maxDispatchMillis, System.currentTimeMillis() - now);
+    }
+
+    private void dispatch(String kind, List<Long> ids) {
+        Handler handler = handlers.get(kind);
+        if (handler == null) {
+            logger.warn("No handler for {} deadlines; dropping {}", kind, ids.size());
+            return;
+        }
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            try {
+                handler.fire(batch);
+                fired.addAndGet(batch.size());
+            } catch (RuntimeException e) {
+                // Try again later rather than lose the deadline until the next restart
+                logger.error("{} deadline handler failed on {} ids; retrying in {}s", kind, batch.size(), retryDelaySeconds, e);
+                failed.addAndGet(batch.size());
+                LocalDateTime retryAt = LocalDateTime.now().plusSeconds(retryDelaySeconds);
+                for (Long id : batch) {
+                    schedule(kind, id, retryAt);
+                }
+            }
+        }
+    }
+}
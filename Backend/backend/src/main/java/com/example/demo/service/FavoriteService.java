@@ -1,5 +1,6 @@
 package com.example.demo.service;
 
+import com.example.demo.event.EngagementEvent;
 import com.example.demo.model.Favorite;
 import com.example.demo.model.Sneaker;
 import com.example.demo.model.User;
@@ -7,6 +8,7 @@ import com.example.demo.repository.FavoriteRepository;
 import com.example.demo.repository.SneakerRepository;
 import com.example.demo.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,6 +27,9 @@ public class FavoriteService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Transactional
     public Favorite addToFavorites(Long sneakerId) {
         if (sneakerId == null) {
@@ -45,7 +50,9 @@ public class FavoriteService {
         favorite.setUser(user);
         favorite.setSneaker(sneaker);
 
-        return favoriteRepository.save(favorite);
+        Favorite saved = favoriteRepository.save(favorite);
+        eventPublisher.publishEvent(EngagementEvent.favorited(sneakerId));
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -0,0 +1,472 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.OrderRequest;
+import com.example.demo.dto.OrderResponse;
+import com.example.demo.dto.SneakerDocument;
+import com.example.demo.event.EngagementEvent;
+import com.example.demo.event.SneakerChangedEvent;
+import com.example.demo.exception.OrderPendingException;
+import com.example.demo.model.Order;
+import com.example.demo.model.Sneaker;
+import com.example.demo.model.User;
+import com.example.demo.repository.OrderRepository;
+import com.example.demo.repository.SneakerRepository;
+import com.example.demo.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Opt-in order path for hyped drops. The remaining pairs of each flash-sale
+ * listing are held in an in-memory counter, so buyers who miss out are turned
+ * away without touching the database. Winners wait in a bounded queue that a
+ * single writer drains in batches: one transaction per listing and batch,
+ * with one conditional stock UPDATE. That UPDATE is still the final guard,
+ * so a counter that drifts can undersell for a moment but never oversell.
+ * After a restart, the counters are rebuilt from sneakers.stock.
+ */
+@Service
+public class FlashSaleService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FlashSaleService.class);
+
+    @Autowired
+    private SneakerRepository sneakerRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderSchedulerService orderSchedulerService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${flash-sale.queue-capacity:1024}")
+    private int queueCapacity;
+
+    @Value("${flash-sale.batch-size:100}")
+    private int batchSize;
+
+    @Value("${flash-sale.wait-millis:10000}")
+    private long waitMillis;
+
+    private final ConcurrentHashMap<Long, Sale> sales = new ConcurrentHashMap<>();
+    private BlockingQueue<Admission> queue;
+    private Thread writer;
+    private volatile boolean running = true;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong persisted = new AtomicLong();
+
+    private static final class Sale {
+        final Long sneakerId;
+        final String sellerUsername;
+        final AtomicInteger remaining = new AtomicInteger();
+        // Admitted but not yet committed
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicLong admitted = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+
+        Sale(Long sneakerId, String sellerUsername) {
+            this.sneakerId = sneakerId;
+            this.sellerUsername = sellerUsername;
+        }
+
+        boolean tryTake() {
+            while (true) {
+                int left = remaining.get();
+                if (left <= 0) {
+                    return false;
+                }
+                if (remaining.compareAndSet(left, left - 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void giveBack(int count) {
+            inFlight.addAndGet(-count);
+            remaining.addAndGet(count);
+        }
+
+        synchronized void reconcile(int stock) {
+            remaining.set(Math.max(0, stock - inFlight.get()));
+        }
+    }
+
+    private record Admission(Sale sale, String buyerUsername, String shippingAddress, String phoneNumber,
+                             IdempotencyService.PendingKey idempotencyKey, CompletableFuture<Order> result) {}
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        writer = new Thread(this::runWriter, "flash-sale-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Let the writer finish what is already queued; anything left is recovered from the stock column
+        running = false;
+        writer.join(waitMillis);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOnStartup() {
+        try {
+            for (Long id : sneakerRepository.findFlashSaleIds()) {
+                open(id);
+            }
+            if (!sales.isEmpty()) {
+                logger.info("Recovered {} flash sales from the stock column", sales.size());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Flash sales could not be recovered, their orders are refused until reconciled", e);
+        }
+    }
+
+    public boolean isActive(Long sneakerId) {
+        return sneakerId != null && sales.containsKey(sneakerId);
+    }
+
+    public Map<String, Object> enable(Long sneakerId) {
+        Integer updated = transactionTemplate.execute(status -> sneakerRepository.setFlashSale(sneakerId, true));
+        if (updated == null || updated == 0) {
+            throw new RuntimeException("Sneaker not found");
+        }
+        open(sneakerId);
+        return getStats(sneakerId);
+    }
+
+    public void disable(Long sneakerId) {
+        transactionTemplate.execute(status -> sneakerRepository.setFlashSale(sneakerId, false));
+        // Admissions already queued still hold their Sale and are written as usual
+        sales.remove(sneakerId);
+    }
+
+    /**
+     * Resets every counter from the stock column, less what is still queued,
+     * and opens flagged listings this node is missing, e.g. after a failed
+     * recovery at startup. Until then their orders are refused.
+     */
+    public Map<String, Object> reconcileAll() {
+        Set<Long> ids = new LinkedHashSet<>(sales.keySet());
+        ids.addAll(sneakerRepository.findFlashSaleIds());
+        for (Long id : ids) {
+            open(id);
+        }
+        return getStats();
+    }
+
+    /**
+     * Places an order on a flash-sale listing. Buyers who miss out are
+     * rejected from memory; winners block until the writer has committed
+     * their order. A winner who stops waiting first gets an
+     * {@link OrderPendingException}, since the order is still queued.
+     */
+    public Order placeOrder(OrderRequest request) {
+        return placeOrder(request, null);
+    }
+
+    /**
+     * Like {@link #placeOrder(OrderRequest)}, for a request under an
+     * Idempotency-Key. The writer stores the order response against the key
+     * in the same transaction as the order, or releases the key if the
+     * admission is turned away, so a retry after a 202 finds the outcome.
+     */
+    public Order placeOrder(OrderRequest request, IdempotencyService.PendingKey idempotencyKey) {
+        OrderService.validateRequest(request);
+        Sale sale = sales.get(request.getSneakerId());
+        if (sale == null) {
+            throw new RuntimeException("Flash sale is not active for this sneaker");
+        }
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        if (username.equals(sale.sellerUsername)) {
+            throw new RuntimeException("You cannot buy your own sneakers");
+        }
+        if (!sale.tryTake()) {
+            sale.rejected.incrementAndGet();
+            throw new RuntimeException("Sneaker is out of stock");
+        }
+        Admission admission = new Admission(sale, username, request.getShippingAddress().trim(),
+                request.getPhoneNumber().trim(), idempotencyKey, new CompletableFuture<>());
+        sale.inFlight.incrementAndGet();
+        if (!queue.offer(admission)) {
+            sale.giveBack(1);
+            sale.rejected.incrementAndGet();
+            throw new RuntimeException("Too many buyers right now, please try again");
+        }
+        sale.admitted.incrementAndGet();
+
+        try {
+            return admission.result().get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new OrderPendingException("Your order is still being processed, check your orders shortly");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OrderPendingException("Your order is still being processed, check your orders shortly");
+        }
+    }
+
+    /**
+     * Seller edits and bulk updates change stock outside this path, so the
+     * counter follows them. Order events are ignored: those come from the
+     * writer itself and are already accounted for.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSneakerChanged(SneakerChangedEvent event) {
+        Sale sale = sales.get(event.getSneakerId());
+        if (sale == null) {
+            return;
+        }
+        if (event.isDeleted()) {
+            sales.remove(event.getSneakerId());
+        } else if (event.getType() == SneakerChangedEvent.Type.UPDATED) {
+            sale.reconcile(event.getDocument().isInStock() ? event.getDocument().getStock() : 0);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("batches", batches.get());
+        stats.put("persisted", persisted.get());
+        List<Map<String, Object>> active = new ArrayList<>();
+        for (Long id : sales.keySet()) {
+            active.add(getStats(id));
+        }
+        stats.put("sales", active);
+        return stats;
+    }
+
+    private Map<String, Object> getStats(Long sneakerId) {
+        Sale sale = sales.get(sneakerId);
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sneakerId", sneakerId);
+        stats.put("active", sale != null);
+        if (sale != null) {
+            stats.put("remaining", sale.remaining.get());
+            stats.put("inFlight", sale.inFlight.get());
+            stats.put("admitted", sale.admitted.get());
+            stats.put("rejected", sale.rejected.get());
+        }
+        return stats;
+    }
+
+    private void open(Long sneakerId) {
+        Sneaker sneaker = sneakerRepository.findByIdWithSeller(sneakerId)
+                .orElseThrow(() -> new RuntimeException("Sneaker not found"));
+        Sale sale = sales.computeIfAbsent(sneakerId, id -> new Sale(id, sneaker.getSeller().getUsername()));
+        sale.reconcile(availableStock(sneaker));
+    }
+
+    private static int availableStock(Sneaker sneaker) {
+        boolean available = sneaker.getStatus() == Sneaker.SneakerStatus.AVAILABLE && sneaker.getStock() != null;
+        return available ? sneaker.getStock() : 0;
+    }
+
+    private void runWriter() {
+        List<Admission> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Admission first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                Map<Sale, List<Admission>> bySale = new LinkedHashMap<>();
+                for (Admission admission : batch) {
+                    bySale.computeIfAbsent(admission.sale(), sale -> new ArrayList<>()).add(admission);
+                }
+                bySale.forEach(this::write);
+                batches.incrementAndGet();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Flash sale writer failed on a batch", e);
+            } finally {
+                for (Admission admission : batch) {
+                    if (!admission.result().isDone()) {
+                        admission.sale().giveBack(1);
+                        reject(admission, "Order could not be placed, please try again");
+                    }
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Persists one listing's share of a batch. If the counter drifted and the
+     * stock column holds fewer pairs than were admitted, the batch is retried
+     * with as many admissions as the stock still covers, in queue order, and
+     * only the rest are turned away.
+     */
+    private void write(Sale sale, List<Admission> admissions) {
+        List<Admission> pending = admissions;
+        List<Admission> accepted = new ArrayList<>();
+        List<Order> orders = null;
+        while (orders == null) {
+            try {
+                orders = persist(sale, pending, accepted);
+            } catch (StockDriftException e) {
+                // Nothing was written; resync the counter from the table and keep what it still covers
+                int stock = sneakerRepository.findById(sale.sneakerId).map(FlashSaleService::availableStock).orElse(0);
+                int keep = Math.min(accepted.size(), stock);
+                logger.warn("Flash sale counter for sneaker {} drifted from the stock column, retrying {} of {} orders",
+                        sale.sneakerId, keep, accepted.size());
+                for (Admission admission : accepted.subList(keep, accepted.size())) {
+                    sale.inFlight.decrementAndGet();
+                    reject(admission, "Sneaker is out of stock");
+                }
+                if (sales.get(sale.sneakerId) == sale) {
+                    sale.reconcile(stock);
+                }
+                if (keep == 0) {
+                    accepted.clear();
+                    orders = List.of();
+                } else {
+                    pending = new ArrayList<>(accepted.subList(0, keep));
+                }
+            }
+        }
+
+        for (int i = 0; i < accepted.size(); i++) {
+            sale.inFlight.decrementAndGet();
+            accepted.get(i).result().complete(orders.get(i));
+        }
+        persisted.addAndGet(accepted.size());
+        for (Admission admission : admissions) {
+            if (!admission.result().isDone()) {
+                admission.sale().giveBack(1);
+                reject(admission, "User not found");
+            }
+        }
+    }
+
+    private void reject(Admission admission, String message) {
+        admission.result().completeExceptionally(new RuntimeException(message));
+        if (admission.idempotencyKey() != null) {
+            try {
+                idempotencyService.releaseDeferred(admission.idempotencyKey());
+            } catch (RuntimeException e) {
+                logger.warn("Could not release Idempotency-Key of a rejected flash sale order: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes all orders plus a single stock decrement, or nothing. The
+     * admissions that got an order are left in {@code accepted}.
+     */
+    private List<Order> persist(Sale sale, List<Admission> admissions, List<Admission> accepted) {
+        return transactionTemplate.execute(status -> {
+            accepted.clear();
+            Sneaker sneaker = sneakerRepository.findByIdWithSeller(sale.sneakerId)
+                    .orElseThrow(() -> new RuntimeException("Sneaker not found"));
+            Map<String, User> buyers = new LinkedHashMap<>();
+            for (User user : userRepository.findByUsernameIn(admissions.stream().map(Admission::buyerUsername).toList())) {
+                buyers.put(user.getUsername(), user);
+            }
+
+            List<Order> created = new ArrayList<>();
+            for (Admission admission : admissions) {
+                User buyer = buyers.get(admission.buyerUsername());
+                if (buyer == null) {
+                    continue;
+                }
+                Order order = new Order();
+                order.setBuyer(buyer);
+                order.setSneaker(sneaker);
+                order.setSeller(sneaker.getSeller());
+                order.setTotalAmount(sneaker.getPrice());
+                order.setShippingAddress(admission.shippingAddress());
+                order.setPhoneNumber(admission.phoneNumber());
+                order.setStatus(Order.OrderStatus.PENDING);
+                created.add(order);
+                accepted.add(admission);
+            }
+            if (created.isEmpty()) {
+                return created;
+            }
+
+            int taken = sneakerRepository.decrementStock(sale.sneakerId, created.size(),
+                    Sneaker.SneakerStatus.AVAILABLE, Sneaker.SneakerStatus.SOLD, LocalDateTime.now());
+            if (taken == 0) {
+                throw new StockDriftException();
+            }
+            List<Order> saved = orderRepository.saveAll(created);
+            outboxService.recordOrdersCreated(saved);
+            Map<IdempotencyService.PendingKey, ResponseEntity<?>> responses = new LinkedHashMap<>();
+            for (int i = 0; i < saved.size(); i++) {
+                Order order = saved.get(i);
+                orderSchedulerService.scheduleDelivery(order.getId(), order.getOrderDate());
+                if (accepted.get(i).idempotencyKey() != null) {
+                    responses.put(accepted.get(i).idempotencyKey(), ResponseEntity.ok(new OrderResponse(order)));
+                }
+            }
+            // Stored with the orders, so a buyer who got a 202 replays the order on retry
+            idempotencyService.completeDeferred(responses);
+            List<SneakerDocument> updated = sneakerRepository.findDocumentsByIds(List.of(sale.sneakerId));
+            eventPublisher.publishEvent(SneakerChangedEvent.stockChanged(updated.get(0)));
+            for (int i = 0; i < saved.size(); i++) {
+                eventPublisher.publishEvent(EngagementEvent.ordered(sale.sneakerId));
+            }
+            return saved;
+        });
+    }
+
+    private static final class StockDriftException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        StockDriftException() {
+            super("Sneaker is out of stock");
+        }
+    }
+}
@@ -0,0 +1,367 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per caller and Idempotency-Key, and replays the
+ * stored response byte for byte on retries. Completed responses are held in
+ * a bounded, expiring cache and in the idempotency_keys table, whose unique
+ * key is the claim that keeps duplicates on other instances from racing the
+ * first request.
+ * <p>
+ * {@link #execute} inserts the claim in the same transaction as the request's
+ * own writes and stores the response there too, so the key and the work it
+ * guards commit together or not at all: a duplicate blocks on the row lock
+ * until the first request finishes, and a request that fails or dies leaves
+ * nothing behind to retry past. {@link #executeDeferred} is for work that
+ * finishes on another thread, such as a queued flash-sale order: the claim
+ * is committed up front and the code that finishes the work completes or
+ * releases it in its own transaction. A claim is never taken over on a
+ * timer, and a 202 for work still in progress is never stored; retries wait
+ * for the outcome and get a fresh 202 until there is one.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_MILLIS = 100;
+    private static final String STILL_PROCESSING = "A request with this Idempotency-Key is still being processed";
+
+    private static final String CLAIM_SQL =
+            "INSERT INTO idempotency_keys (owner, idempotency_key, request_hash, created_at) VALUES (?, ?, ?, ?)";
+    private static final String COMPLETE_SQL =
+            "UPDATE idempotency_keys SET status_code = ?, response_body = ? " +
+            "WHERE owner = ? AND idempotency_key = ? AND status_code IS NULL";
+    private static final String RELEASE_SQL =
+            "DELETE FROM idempotency_keys WHERE owner = ? AND idempotency_key = ? AND status_code IS NULL";
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl-hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.max-entries:10000}")
+    private long maxEntries;
+
+    @Value("${idempotency.wait-millis:15000}")
+    private long waitMillis;
+
+    private Cache<String, Stored> cache;
+
+    // Duplicates on this instance wait on the first request directly rather than polling the table
+    private final ConcurrentHashMap<String, CompletableFuture<Stored>> inFlight = new ConcurrentHashMap<>();
+
+    private record Stored(String requestHash, int statusCode, byte[] body) {}
+
+    /** A committed claim whose request is finished elsewhere, by {@link #completeDeferred} or {@link #releaseDeferred}. */
+    public record PendingKey(String owner, String key) {}
+
+    @PostConstruct
+    public void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofHours(ttlHours))
+                .build();
+    }
+
+    /**
+     * Runs {@code action} unless this caller already sent {@code key}, in
+     * which case the first response is returned again with the
+     * {@value #REPLAYED_HEADER} header. Reusing a key for a different request
+     * body is rejected. The claim, the action's writes and the stored
+     * response share one transaction.
+     */
+    public ResponseEntity<byte[]> execute(String key, Object request, Supplier<ResponseEntity<?>> action) {
+        return execute(key, request, false, pending -> action.get());
+    }
+
+    /**
+     * Like {@link #execute}, for an action that may answer 202 and finish the
+     * work later. The claim is committed before the action runs, outside any
+     * transaction, and the action gets the key to hand to whoever finishes it.
+     */
+    public ResponseEntity<byte[]> executeDeferred(String key, Object request, Function<PendingKey, ResponseEntity<?>> action) {
+        return execute(key, request, true, action);
+    }
+
+    /**
+     * Stores the final responses of deferred requests. Call it inside the
+     * transaction that writes their work, so both commit together.
+     */
+    public void completeDeferred(Map<PendingKey, ResponseEntity<?>> responses) {
+        if (responses.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = responses.entrySet().stream()
+                .map(entry -> new Object[] {
+                        entry.getValue().getStatusCode().value(),
+                        new String(serialize(entry.getValue().getBody()), StandardCharsets.UTF_8),
+                        entry.getKey().owner(), entry.getKey().key()})
+                .toList();
+        jdbcTemplate.batchUpdate(COMPLETE_SQL, rows);
+    }
+
+    /** Frees the key of a deferred request whose work was turned away, so the client can retry it. */
+    public void releaseDeferred(PendingKey pendingKey) {
+        jdbcTemplate.update(RELEASE_SQL, pendingKey.owner(), pendingKey.key());
+    }
+
+    @Scheduled(fixedRate = 3600000)
+    public void pruneExpired() {
+        Integer removed = transactionTemplate.execute(status ->
+                repository.deleteOlderThan(LocalDateTime.now().minusHours(ttlHours)));
+        if (removed != null && removed > 0) {
+            logger.debug("Pruned {} expired idempotency keys", removed);
+        }
+    }
+
+    private ResponseEntity<byte[]> execute(String key, Object request, boolean deferred,
+                                           Function<PendingKey, ResponseEntity<?>> action) {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        String owner = SecurityContextHolder.getContext().getAuthentication().getName();
+        String scopedKey = owner + "\n" + key;
+        String requestHash = hash(request);
+
+        Stored cached = cache.getIfPresent(scopedKey);
+        if (cached != null) {
+            return replay(cached, requestHash);
+        }
+
+        CompletableFuture<Stored> mine = new CompletableFuture<>();
+        CompletableFuture<Stored> running = inFlight.putIfAbsent(scopedKey, mine);
+        if (running != null) {
+            return replay(await(running), requestHash);
+        }
+        try {
+            while (true) {
+                Optional<Stored> previous = findOutcome(owner, key);
+                if (previous.isPresent()) {
+                    mine.complete(previous.get());
+                    if (isFinal(previous.get().statusCode())) {
+                        cache.put(scopedKey, previous.get());
+                    }
+                    return replay(previous.get(), requestHash);
+                }
+                Optional<Stored> result = deferred
+                        ? runDeferred(owner, key, requestHash, action)
+                        : runAtomically(owner, key, requestHash, action);
+                if (result.isEmpty()) {
+                    // Another instance claimed the key first; go round and read its outcome
+                    continue;
+                }
+                Stored stored = result.get();
+                mine.complete(stored);
+                if (isFinal(stored.statusCode())) {
+                    cache.put(scopedKey, stored);
+                }
+                return toResponse(stored, false);
+            }
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(scopedKey, mine);
+        }
+    }
+
+    /**
+     * Returns the stored response for a completed key, empty when the key is
+     * free, or a 202 that is not stored when deferred work is still running
+     * after waiting up to idempotency.wait-millis for it.
+     */
+    private Optional<Stored> findOutcome(String owner, String key) {
+        long deadline = System.currentTimeMillis() + waitMillis;
+        while (true) {
+            Optional<IdempotencyRecordRepository.Claim> existing = repository.findClaimByOwnerAndIdempotencyKey(owner, key);
+            if (existing.isEmpty()) {
+                return Optional.empty();
+            }
+            IdempotencyRecordRepository.Claim claim = existing.get();
+            if (claim.getStatusCode() != null) {
+                return Optional.of(new Stored(claim.getRequestHash(), claim.getStatusCode(),
+                        claim.getResponseBody().getBytes(StandardCharsets.UTF_8)));
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return Optional.of(new Stored(claim.getRequestHash(), 202, serialize(Map.of("message", STILL_PROCESSING))));
+            }
+            sleep();
+        }
+    }
+
+    /**
+     * Claims the key, runs the action and stores its response in one
+     * transaction. Anything but a success rolls all of it back, so the key
+     * is free again. Empty when another request holds the key.
+     */
+    private Optional<Stored> runAtomically(String owner, String key, String requestHash,
+                                           Function<PendingKey, ResponseEntity<?>> action) {
+        try {
+            return Optional.ofNullable(transactionTemplate.execute(status -> {
+                try {
+                    jdbcTemplate.update(CLAIM_SQL, owner, key, requestHash, Timestamp.valueOf(LocalDateTime.now()));
+                } catch (DuplicateKeyException e) {
+                    status.setRollbackOnly();
+                    return null;
+                }
+                ResponseEntity<?> response = action.apply(new PendingKey(owner, key));
+                Stored stored = new Stored(requestHash, response.getStatusCode().value(), serialize(response.getBody()));
+                if (isFinal(stored.statusCode())) {
+                    complete(owner, key, stored);
+                } else if (!isSuccess(stored.statusCode())) {
+                    status.setRollbackOnly();
+                }
+                // A 202 commits the bare claim; whoever finishes the work completes it
+                return stored;
+            }));
+        } catch (PessimisticLockingFailureException e) {
+            // The first request held its claim longer than the database lock wait
+            throw new RuntimeException(STILL_PROCESSING);
+        }
+    }
+
+    /**
+     * Commits the claim, then runs the action outside any transaction. A
+     * rejected request (4xx) created nothing, so its key is released; after
+     * any other failure the outcome is unknown and the claim is kept rather
+     * than risk running the request twice.
+     */
+    private Optional<Stored> runDeferred(String owner, String key, String requestHash,
+                                         Function<PendingKey, ResponseEntity<?>> action) {
+        try {
+            // Plain JDBC: a duplicate-key failure must not poison the request's persistence context
+            transactionTemplate.execute(status ->
+                    jdbcTemplate.update(CLAIM_SQL, owner, key, requestHash, Timestamp.valueOf(LocalDateTime.now())));
+        } catch (DuplicateKeyException e) {
+            return Optional.empty();
+        }
+        ResponseEntity<?> response = action.apply(new PendingKey(owner, key));
+        Stored stored = new Stored(requestHash, response.getStatusCode().value(), serialize(response.getBody()));
+        if (isFinal(stored.statusCode())) {
+            // Normally already stored by the transaction that did the work; then this matches no row
+            complete(owner, key, stored);
+        } else if (response.getStatusCode().is4xxClientError()) {
+            jdbcTemplate.update(RELEASE_SQL, owner, key);
+        }
+        return Optional.of(stored);
+    }
+
+    private void complete(String owner, String key, Stored stored) {
+        jdbcTemplate.update(COMPLETE_SQL, stored.statusCode(), new String(stored.body(), StandardCharsets.UTF_8), owner, key);
+    }
+
+    private Stored await(CompletableFuture<Stored> running) {
+        try {
+            return running.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new RuntimeException(STILL_PROCESSING);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Request was interrupted");
+        }
+    }
+
+    private ResponseEntity<byte[]> replay(Stored stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new IllegalArgumentException("Idempotency-Key was already used for a different request");
+        }
+        return toResponse(stored, true);
+    }
+
+    private static ResponseEntity<byte[]> toResponse(Stored stored, boolean replayed) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.statusCode())
+                .contentType(MediaType.APPLICATION_JSON);
+        if (replayed) {
+            builder.header(REPLAYED_HEADER, "true");
+        }
+        return builder.body(stored.body());
+    }
+
+    private static boolean isSuccess(int statusCode) {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    // A 202 only says the work is still running, so it is never stored or replayed
+    private static boolean isFinal(int statusCode) {
+        return isSuccess(statusCode) && statusCode != 202;
+    }
+
+    private byte[] serialize(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response", e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(serialize(request)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(POLL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Request was interrupted");
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * One-off job that moves legacy base64 images out of sneaker_images and into
+ * the on-disk store. Each sneaker is rewritten in its own short transaction,
+ * so the job can be stopped and re-run safely at any point. The transaction
+ * locks the listing and its image rows before reading them, so a seller's
+ * concurrent edit is either read here or applied after, never overwritten.
+ */
+@Service
+public class ImageMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageMigrationService.class);
+
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public Map<String, Object> migrateBase64Images() {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("Image migration is already running");
+        }
+        try {
+            long lastSneakerId = 0;
+            int sneakersMigrated = 0;
+            int imagesConverted = 0;
+            int failures = 0;
+
+            while (true) {
+                List<Long> sneakerIds = jdbcTemplate.queryForList(
+                        "SELECT DISTINCT sneaker_id FROM sneaker_images " +
+                        "WHERE sneaker_id > ? AND image_url LIKE 'data:%' " +
+                        "ORDER BY sneaker_id LIMIT ?",
+                        Long.class, lastSneakerId, BATCH_SIZE);
+                if (sneakerIds.isEmpty()) {
+                    break;
+                }
+                for (Long sneakerId : sneakerIds) {
+                    try {
+                        Integer converted = transactionTemplate.execute(status -> migrateSneaker(sneakerId));
+                        imagesConverted += converted != null ? converted : 0;
+                        sneakersMigrated++;
+                    } catch (RuntimeException e) {
+                        failures++;
+                        logger.warn("Failed to migrate images for sneaker {}: {}", sneakerId, e.getMessage());
+                    }
+                    lastSneakerId = sneakerId;
+                }
+                logger.info("Image migration progress: {} sneakers, {} images", sneakersMigrated, imagesConverted);
+            }
+
+            // Listings that never had inline images still need their card cover filled in
+            int coversBackfilled = backfillCovers();
+
+            return Map.of(
+                    "sneakersMigrated", sneakersMigrated,
+                    "imagesConverted", imagesConverted,
+                    "coversBackfilled", coversBackfilled,
+                    "failures", failures
+            );
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillCoversOnStartup() {
+        int numbered = backfillImageOrder();
+        if (numbered > 0) {
+            logger.info("Numbered the images of {} listings", numbered);
+        }
+        int backfilled = backfillCovers();
+        if (backfilled > 0) {
+            logger.info("Backfilled cover image for {} listings", backfilled);
+        }
+    }
+
+    /**
+     * Numbers the images of listings saved before image_order existed,
+     * keeping the order their rows come back in, which is the order the
+     * listing has been shown in so far. Adding the column leaves those rows
+     * all at 0 (or NULL), which Hibernate would load as a single image, so
+     * this runs before anything else reads them.
+     */
+    public int backfillImageOrder() {
+        long lastSneakerId = 0;
+        int numbered = 0;
+        while (true) {
+            List<Long> sneakerIds = jdbcTemplate.queryForList(
+                    "SELECT sneaker_id FROM sneaker_images WHERE sneaker_id > ? GROUP BY sneaker_id " +
+                    "HAVING COUNT(image_order) < COUNT(*) OR COUNT(DISTINCT image_order) < COUNT(*) " +
+                    "ORDER BY sneaker_id LIMIT ?",
+                    Long.class, lastSneakerId, BATCH_SIZE);
+            if (sneakerIds.isEmpty()) {
+                return numbered;
+            }
+            for (Long sneakerId : sneakerIds) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    lockListing(sneakerId);
+                    rewriteImages(sneakerId, jdbcTemplate.queryForList(
+                            "SELECT image_url FROM sneaker_images WHERE sneaker_id = ? FOR UPDATE", String.class, sneakerId));
+                });
+                numbered++;
+                lastSneakerId = sneakerId;
+            }
+        }
+    }
+
+    /**
+     * Fills in cover_image for listings saved before the column existed, so
+     * catalog cards are not blank. The cover is the image at image_order 0,
+     * the same one the entity picks on save. Listings whose first image is
+     * still inline base64 are left to the migration above, which sets the
+     * cover once the image is on disk.
+     */
+    public int backfillCovers() {
+        long lastSneakerId = 0;
+        int backfilled = 0;
+        while (true) {
+            List<Long> sneakerIds = jdbcTemplate.queryForList(
+                    "SELECT id FROM sneakers WHERE cover_image IS NULL AND id > ? ORDER BY id LIMIT ?",
+                    Long.class, lastSneakerId, BATCH_SIZE);
+            if (sneakerIds.isEmpty()) {
+                return backfilled;
+            }
+            lastSneakerId = sneakerIds.get(sneakerIds.size() - 1);
+
+            Map<Long, String> firstImages = new LinkedHashMap<>();
+            jdbcTemplate.query("SELECT sneaker_id, image_url FROM sneaker_images WHERE sneaker_id IN (" +
+                            String.join(",", Collections.nCopies(sneakerIds.size(), "?")) + ") ORDER BY sneaker_id, image_order",
+                    (RowCallbackHandler) rs -> firstImages.putIfAbsent(rs.getLong(1), rs.getString(2)),
+                    sneakerIds.toArray());
+            List<Map.Entry<Long, String>> covers = firstImages.entrySet().stream()
+                    .filter(entry -> entry.getValue() != null && !entry.getValue().startsWith("data:"))
+                    .toList();
+            jdbcTemplate.batchUpdate("UPDATE sneakers SET cover_image = ? WHERE id = ? AND cover_image IS NULL",
+                    covers, BATCH_SIZE, (ps, entry) -> {
+                        ps.setString(1, entry.getValue());
+                        ps.setLong(2, entry.getKey());
+                    });
+            backfilled += covers.size();
+        }
+    }
+
+    private int migrateSneaker(Long sneakerId) {
+        lockListing(sneakerId);
+        List<String> references = jdbcTemplate.queryForList(
+                "SELECT image_url FROM sneaker_images WHERE sneaker_id = ? ORDER BY image_order FOR UPDATE",
+                String.class, sneakerId);
+
+        int converted = 0;
+        List<String> normalized = new ArrayList<>(references.size());
+        for (String reference : references) {
+            if (reference != null && reference.startsWith("data:")) {
+                normalized.add(imageStorageService.storeDataUrl(reference));
+                converted++;
+            } else {
+                normalized.add(reference);
+            }
+        }
+
+        rewriteImages(sneakerId, normalized);
+        // The exported image URLs changed, so bump updated_at for incremental exports
+        jdbcTemplate.update("UPDATE sneakers SET cover_image = ?, updated_at = ? WHERE id = ?",
+                normalized.isEmpty() ? null : normalized.get(0), Timestamp.valueOf(LocalDateTime.now()), sneakerId);
+        return converted;
+    }
+
+    /**
+     * Locks the listing row ahead of its images, the order a Hibernate flush
+     * of SneakerService.updateSneaker takes them in, so the two wait on each
+     * other instead of deadlocking.
+     */
+    private void lockListing(Long sneakerId) {
+        jdbcTemplate.queryForList("SELECT id FROM sneakers WHERE id = ? FOR UPDATE", Long.class, sneakerId);
+    }
+
+    // Rewrites the collection in the given order, numbered from 0 as Hibernate would
+    private void rewriteImages(Long sneakerId, List<String> references) {
+        jdbcTemplate.update("DELETE FROM sneaker_images WHERE sneaker_id = ?", sneakerId);
+        List<Integer> positions = IntStream.range(0, references.size()).boxed().toList();
+        jdbcTemplate.batchUpdate("INSERT INTO sneaker_images (sneaker_id, image_order, image_url) VALUES (?, ?, ?)",
+                positions, BATCH_SIZE, (ps, position) -> {
+                    ps.setLong(1, sneakerId);
+                    ps.setInt(2, position);
+                    ps.setString(3, references.get(position));
+                });
+    }
+}
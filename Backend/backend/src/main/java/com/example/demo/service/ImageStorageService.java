@@ -0,0 +1,197 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed image store. Every image is saved once under the SHA-256
+ * of its bytes, so the id doubles as a strong ETag and identical uploads are
+ * deduplicated for free. Ids look like {@code <sha256>.<ext>}.
+ */
+@Service
+public class ImageStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageStorageService.class);
+
+    public static final String URL_PREFIX = "/api/images/";
+
+    private static final Pattern IMAGE_ID_PATTERN = Pattern.compile("^[a-f0-9]{64}\\.(jpg|png|gif|webp)$");
+    private static final int MAX_REFERENCE_LENGTH = 512;
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp"
+    );
+
+    @Value("${upload.path:uploads/}")
+    private String uploadPath;
+
+    private Path root;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(uploadPath, "images").toAbsolutePath().normalize();
+        Files.createDirectories(root.resolve("tmp"));
+        logger.info("Image store initialised at {}", root);
+    }
+
+    /**
+     * Streams an upload to disk while hashing it, so the payload is never held in memory.
+     */
+    public String store(InputStream input) {
+        Path tmp = null;
+        try {
+            tmp = Files.createTempFile(root.resolve("tmp"), "upload", ".tmp");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(input, digest);
+                 OutputStream out = Files.newOutputStream(tmp)) {
+                in.transferTo(out);
+            }
+
+            String extension;
+            try (InputStream header = Files.newInputStream(tmp)) {
+                extension = detectExtension(header.readNBytes(12));
+            }
+
+            String id = HexFormat.of().formatHex(digest.digest()) + "." + extension;
+            Path target = resolve(id);
+            if (Files.exists(target)) {
+                return id;
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                // A concurrent upload of the same bytes won the race; the content is identical
+            }
+            return id;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store image", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            if (tmp != null) {
+                try {
+                    Files.deleteIfExists(tmp);
+                } catch (IOException ignored) {
+                    // Leftover temp files are harmless
+                }
+            }
+        }
+    }
+
+    public String storeBytes(byte[] data) {
+        return store(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Decodes a {@code data:image/...;base64,} URL and stores its payload.
+     */
+    public String storeDataUrl(String dataUrl) {
+        int comma = dataUrl.indexOf(',');
+        if (!dataUrl.startsWith("data:") || comma < 0 || !dataUrl.substring(0, comma).endsWith(";base64")) {
+            throw new IllegalArgumentException("Invalid image data");
+        }
+        byte[] data;
+        try {
+            data = Base64.getMimeDecoder().decode(dataUrl.substring(comma + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid image data");
+        }
+        return storeBytes(data);
+    }
+
+    /**
+     * Converts client-supplied image references into what is persisted in
+     * sneaker_images: inline base64 images are moved into the store and
+     * replaced by their id, store URLs are reduced to their id, and external
+     * URLs are kept as they are.
+     */
+    public List<String> normalizeReferences(List<String> references) {
+        List<String> normalized = new ArrayList<>(references.size());
+        for (String reference : references) {
+            if (reference == null || reference.isBlank()) {
+                continue;
+            }
+            String ref = reference.trim();
+            if (ref.startsWith("data:")) {
+                normalized.add(storeDataUrl(ref));
+            } else if (ref.startsWith(URL_PREFIX) && isImageId(ref.substring(URL_PREFIX.length()))) {
+                normalized.add(ref.substring(URL_PREFIX.length()));
+            } else if (isImageId(ref)) {
+                normalized.add(ref);
+            } else if ((ref.startsWith("http://") || ref.startsWith("https://")) && ref.length() <= MAX_REFERENCE_LENGTH) {
+                normalized.add(ref);
+            } else {
+                throw new IllegalArgumentException("Invalid image reference");
+            }
+        }
+        return normalized;
+    }
+
+    public boolean isImageId(String id) {
+        return id != null && IMAGE_ID_PATTERN.matcher(id).matches();
+    }
+
+    /**
+     * Maps a stored reference to the URL clients should load it from.
+     */
+    public static String toUrl(String reference) {
+        if (reference != null && IMAGE_ID_PATTERN.matcher(reference).matches()) {
+            return URL_PREFIX + reference;
+        }
+        return reference;
+    }
+
+    public Path resolve(String id) {
+        if (!isImageId(id)) {
+            throw new IllegalArgumentException("Invalid image id");
+        }
+        return root.resolve(id.substring(0, 2)).resolve(id.substring(2, 4)).resolve(id);
+    }
+
+    public String contentType(String id) {
+        return CONTENT_TYPES.getOrDefault(id.substring(id.lastIndexOf('.') + 1), "application/octet-stream");
+    }
+
+    private String detectExtension(byte[] header) {
+        if (header.length >= 3 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == 0xD8 && (header[2] & 0xFF) == 0xFF) {
+            return "jpg";
+        }
+        if (header.length >= 8 && (header[0] & 0xFF) == 0x89 && header[1] == 'P' && header[2] == 'N' && header[3] == 'G') {
+            return "png";
+        }
+        if (header.length >= 6 && header[0] == 'G' && header[1] == 'I' && header[2] == 'F' && header[3] == '8') {
+            return "gif";
+        }
+        if (header.length >= 12 && header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return "webp";
+        }
+        throw new IllegalArgumentException("Unsupported image format");
+    }
+}
@@ -30,6 +30,9 @@ public class MessageService {
     
     @Autowired
     private SneakerRepository sneakerRepository;
+
+    @Autowired
+    private OutboxService outboxService;
     
     // Rate limiting constants
     private static final int MAX_MESSAGES_PER_MINUTE = 10;
@@ -213,7 +216,9 @@ public class MessageService {
         }
         
         try {
-            return messageRepository.save(message);
+            Message saved = messageRepository.save(message);
+            outboxService.recordMessage(saved, "MESSAGE_SENT");
+            return saved;
         } catch (Exception e) {
             throw new RuntimeException("Failed to send message. Please try again.", e);
         }
@@ -299,6 +304,7 @@ public class MessageService {
             message.setIsRead(true);
             try {
                 messageRepository.save(message);
+                outboxService.recordMessage(message, "MESSAGE_READ");
             } catch (Exception e) {
                 throw new RuntimeException("Failed to mark message as read", e);
             }
@@ -340,6 +346,9 @@ public class MessageService {
             // Batch update for efficiency
             if (!unreadMessages.isEmpty()) {
                 messageRepository.saveAll(unreadMessages);
+                for (Message message : unreadMessages) {
+                    outboxService.recordMessage(message, "MESSAGE_READ");
+                }
             }
         } catch (Exception e) {
             throw new RuntimeException("Failed to mark conversation as read", e);
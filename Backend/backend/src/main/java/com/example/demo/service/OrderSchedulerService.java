@@ -2,52 +2,189 @@ package com.example.demo.service;
 
 import com.example.demo.model.Order;
 import com.example.demo.repository.OrderRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Marks PENDING and SHIPPED orders as DELIVERED once they are older than the
+ * cut-off. Each open order's deadline sits in the {@link DeadlineScheduler}
+ * and fires within a tick of falling due; the wheel is reloaded from the
+ * table on startup. A slower sweep in chunks off the (status, order_date)
+ * index is kept as a backstop for deadlines held only by another instance.
+ */
 @Service
 public class OrderSchedulerService {
 
+    private static final Logger logger = LoggerFactory.getLogger(OrderSchedulerService.class);
+
+    static final String DELIVERY_DEADLINE = "order-delivery";
+
+    private static final List<Order.OrderStatus> OPEN_STATUSES =
+            List.of(Order.OrderStatus.PENDING, Order.OrderStatus.SHIPPED);
+
     @Autowired
     private OrderRepository orderRepository;
 
-    // Run every hour to check for orders that need to be marked as delivered
-    @Scheduled(fixedRate = 3600000) // 1 hour in milliseconds
-    @Transactional
-    public void autoCompleteOrders() {
-        LocalDateTime threeDaysAgo = LocalDateTime.now().minusDays(3);
-        
-        // Find all PENDING and SHIPPED orders
-        List<Order> pendingOrders = orderRepository.findByStatus(Order.OrderStatus.PENDING);
-        List<Order> shippedOrders = orderRepository.findByStatus(Order.OrderStatus.SHIPPED);
-        
-        int updatedCount = 0;
-        
-        // Check PENDING orders
-        for (Order order : pendingOrders) {
-            if (order.getOrderDate().isBefore(threeDaysAgo)) {
-                order.setStatus(Order.OrderStatus.DELIVERED);
-                orderRepository.save(order);
-                updatedCount++;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DeadlineScheduler deadlineScheduler;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Value("${order.auto-complete.after-days:3}")
+    private int afterDays;
+
+    @Value("${order.auto-complete.chunk-size:1000}")
+    private int chunkSize;
+
+    // The hourly run and the manual trigger must not work the same rows at once
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile LocalDateTime lastRunAt;
+    private volatile long lastRunMillis;
+    private volatile int lastRunCompleted;
+    private volatile int lastRunChunks;
+    private volatile long totalCompleted;
+    private final AtomicLong deadlineCompleted = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        deadlineScheduler.register(DELIVERY_DEADLINE, this::completeOnDeadline);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadDeadlines() {
+        long started = System.currentTimeMillis();
+        int loaded = 0;
+        Long afterId = 0L;
+        while (true) {
+            List<Object[]> page = orderRepository.findOrderDatesByStatusIn(OPEN_STATUSES, afterId,
+                    PageRequest.of(0, chunkSize));
+            for (Object[] row : page) {
+                scheduleDelivery((Long) row[0], (LocalDateTime) row[1]);
+            }
+            loaded += page.size();
+            if (page.size() < chunkSize) {
+                break;
             }
+            afterId = (Long) page.get(page.size() - 1)[0];
         }
-        
-        // Check SHIPPED orders
-        for (Order order : shippedOrders) {
-            if (order.getOrderDate().isBefore(threeDaysAgo)) {
-                order.setStatus(Order.OrderStatus.DELIVERED);
-                orderRepository.save(order);
-                updatedCount++;
+        logger.info("Loaded {} order delivery deadlines in {} ms", loaded, System.currentTimeMillis() - started);
+    }
+
+    /** Registers the auto-delivery deadline for a new open order. */
+    public void scheduleDelivery(Long orderId, LocalDateTime orderDate) {
+        deadlineScheduler.schedule(DELIVERY_DEADLINE, orderId, orderDate.plusDays(afterDays));
+    }
+
+    public void cancelDelivery(Long orderId) {
+        deadlineScheduler.cancel(DELIVERY_DEADLINE, orderId);
+    }
+
+    private void completeOnDeadline(List<Long> ids) {
+        // Orders cancelled, delivered or rolled back since they were scheduled simply do not match
+        Integer updated = transactionTemplate.execute(tx -> markDelivered(ids, OPEN_STATUSES));
+        if (updated != null) {
+            deadlineCompleted.addAndGet(updated);
+        }
+    }
+
+    // Backstop sweep for deadlines this instance never saw
+    @Scheduled(fixedRateString = "${order.auto-complete.sweep-interval-ms:21600000}")
+    public int autoCompleteOrders() {
+        if (!running.compareAndSet(false, true)) {
+            logger.info("Auto-complete is already running; skipping");
+            return 0;
+        }
+        try {
+            long started = System.currentTimeMillis();
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+            int completed = 0;
+            int chunks = 0;
+            for (Order.OrderStatus status : OPEN_STATUSES) {
+                while (true) {
+                    Integer updated = transactionTemplate.execute(tx -> completeChunk(status, cutoff));
+                    if (updated == null || updated < 0) {
+                        break;
+                    }
+                    completed += updated;
+                    chunks++;
+                    if (chunks % 100 == 0) {
+                        logger.info("Auto-complete progress: {} orders in {} chunks", completed, chunks);
+                    }
+                }
+            }
+            lastRunAt = LocalDateTime.now();
+            lastRunMillis = System.currentTimeMillis() - started;
+            lastRunCompleted = completed;
+            lastRunChunks = chunks;
+            totalCompleted += completed;
+            if (completed > 0) {
+                logger.info("Auto-completed {} orders older than {} days in {} chunks ({} ms)",
+                        completed, afterDays, chunks, lastRunMillis);
             }
+            return completed;
+        } finally {
+            running.set(false);
         }
-        
-        if (updatedCount > 0) {
-            System.out.println("Auto-completed " + updatedCount + " orders older than 3 days");
+    }
+
+    /**
+     * Completes the oldest chunk of orders in {@code status}. Returns the
+     * number updated, or -1 once nothing is left before the cut-off.
+     */
+    private int completeChunk(Order.OrderStatus status, LocalDateTime cutoff) {
+        List<Long> ids = orderRepository.findIdsByStatusBefore(status, cutoff, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            return -1;
+        }
+        return markDelivered(ids, List.of(status));
+    }
+
+    private int markDelivered(List<Long> ids, List<Order.OrderStatus> from) {
+        // Re-checking the status skips orders a seller moved on since the ids were read
+        List<Object[]> open = orderRepository.lockStatuses(ids, from);
+        if (open.isEmpty()) {
+            return 0;
+        }
+        Map<Long, Order.OrderStatus> previous = new LinkedHashMap<>();
+        for (Object[] row : open) {
+            previous.put((Long) row[0], (Order.OrderStatus) row[1]);
         }
+        int updated = orderRepository.updateStatus(previous.keySet(), from, Order.OrderStatus.DELIVERED);
+        outboxService.recordOrderStatusChanges(previous, Order.OrderStatus.DELIVERED);
+        return updated;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running.get());
+        stats.put("chunkSize", chunkSize);
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("lastRunCompleted", lastRunCompleted);
+        stats.put("lastRunChunks", lastRunChunks);
+        stats.put("totalCompleted", totalCompleted);
+        stats.put("deadlineCompleted", deadlineCompleted.get());
+        return stats;
     }
 }
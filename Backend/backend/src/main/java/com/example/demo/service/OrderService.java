@@ -1,6 +1,12 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.CheckoutRequest;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.KeysetCursor;
 import com.example.demo.dto.OrderRequest;
+import com.example.demo.dto.SneakerDocument;
+import com.example.demo.event.EngagementEvent;
+import com.example.demo.event.SneakerChangedEvent;
 import com.example.demo.model.Order;
 import com.example.demo.model.Sneaker;
 import com.example.demo.model.User;
@@ -8,10 +14,24 @@ import com.example.demo.repository.OrderRepository;
 import com.example.demo.repository.SneakerRepository;
 import com.example.demo.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 @Transactional
@@ -25,22 +45,38 @@ public class OrderService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private OrderSchedulerService orderSchedulerService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Value("${orders.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${orders.page.max-size:100}")
+    private int maxPageSize;
+
+    // Status is assigned before stock, so it still sees the pre-decrement value
+    private static final String CHECKOUT_DECREMENT_SQL =
+            "UPDATE sneakers SET status = CASE WHEN stock = ? THEN 'SOLD' ELSE status END, " +
+            "stock = stock - ?, updated_at = ? " +
+            "WHERE id = ? AND stock >= ? AND status = 'AVAILABLE'";
+
+    private static final String CHECKOUT_INSERT_SQL =
+            "INSERT INTO orders (buyer_id, sneaker_id, seller_id, total_price, order_date, " +
+            "shipping_address, phone_number, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
     @Transactional
     public Order createOrder(OrderRequest request) {
-        // Validate request
-        if (request == null) {
-            throw new IllegalArgumentException("Order request cannot be null");
-        }
-        if (request.getSneakerId() == null) {
-            throw new IllegalArgumentException("Sneaker ID is required");
-        }
-        if (request.getShippingAddress() == null || request.getShippingAddress().trim().isEmpty()) {
-            throw new IllegalArgumentException("Shipping address is required");
-        }
-        if (request.getPhoneNumber() == null || request.getPhoneNumber().trim().isEmpty()) {
-            throw new IllegalArgumentException("Phone number is required");
-        }
-        
+        validateRequest(request);
+
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
         User buyer = userRepository.findByUsername(username)
                 .orElseThrow(() -> new RuntimeException("User not found"));
@@ -66,6 +102,11 @@ public class OrderService {
         if (sneaker.getStock() == null || sneaker.getStock() < 1) {
             throw new RuntimeException("Sneaker is out of stock");
         }
+
+        // Flash-sale orders are admitted by FlashSaleService; landing here means the sale is not open on this node yet
+        if (sneaker.isFlashSale()) {
+            throw new RuntimeException("Sneaker is in a flash sale that is not open yet, please try again shortly");
+        }
         
         // Validate price
         if (sneaker.getPrice() == null || sneaker.getPrice().compareTo(java.math.BigDecimal.ZERO) <= 0) {
@@ -82,14 +123,227 @@ public class OrderService {
         order.setPhoneNumber(request.getPhoneNumber().trim());
         order.setStatus(Order.OrderStatus.PENDING);
 
-        // Update stock atomically
-        sneaker.setStock(sneaker.getStock() - 1);
-        if (sneaker.getStock() == 0) {
-            sneaker.setStatus(Sneaker.SneakerStatus.SOLD);
+        // The checks above only fail fast; this conditional UPDATE is what stops two buyers taking the last pair
+        int taken = sneakerRepository.decrementStock(sneaker.getId(), 1, Sneaker.SneakerStatus.AVAILABLE,
+                Sneaker.SneakerStatus.SOLD, LocalDateTime.now());
+        if (taken == 0) {
+            throw new RuntimeException("Sneaker is out of stock");
+        }
+        // The loaded entity still holds the old stock and is never saved; the event carries the row as updated
+        List<SneakerDocument> updated = sneakerRepository.findDocumentsByIds(List.of(sneaker.getId()));
+        eventPublisher.publishEvent(SneakerChangedEvent.stockChanged(updated.get(0)));
+        eventPublisher.publishEvent(EngagementEvent.ordered(sneaker.getId()));
+
+        Order saved = orderRepository.save(order);
+        outboxService.recordOrderCreated(saved);
+        orderSchedulerService.scheduleDelivery(saved.getId(), saved.getOrderDate());
+        return saved;
+    }
+
+    /**
+     * Orders every item in the cart or none of them. Stock is taken with
+     * conditional updates in ascending sneaker id order, so two overlapping
+     * carts always lock rows in the same order and cannot deadlock, and the
+     * orders are written in a single JDBC batch.
+     */
+    public List<Order> checkout(CheckoutRequest request) {
+        if (request == null || request.getItems() == null || request.getItems().isEmpty()) {
+            throw new IllegalArgumentException("At least one item is required");
+        }
+        if (request.getShippingAddress() == null || request.getShippingAddress().trim().isEmpty()) {
+            throw new IllegalArgumentException("Shipping address is required");
+        }
+        if (request.getPhoneNumber() == null || request.getPhoneNumber().trim().isEmpty()) {
+            throw new IllegalArgumentException("Phone number is required");
+        }
+        // Merge repeated lines; the sorted map is also the lock order
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (CheckoutRequest.Item item : request.getItems()) {
+            if (item.getSneakerId() == null) {
+                throw new IllegalArgumentException("Sneaker ID is required");
+            }
+            if (item.getQuantity() < 1) {
+                throw new IllegalArgumentException("Quantity must be at least 1");
+            }
+            int merged;
+            try {
+                merged = quantities.merge(item.getSneakerId(), item.getQuantity(), Math::addExact);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Quantity must be at most " + CheckoutRequest.MAX_QUANTITY);
+            }
+            // Each pair becomes an order, so the merged total is capped too, not just each line
+            if (merged < 1 || merged > CheckoutRequest.MAX_QUANTITY) {
+                throw new IllegalArgumentException("Quantity must be between 1 and " + CheckoutRequest.MAX_QUANTITY);
+            }
+        }
+
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        User buyer = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        List<Sneaker> sneakers = sneakerRepository.findAllByIdWithSeller(quantities.keySet());
+        if (sneakers.size() != quantities.size()) {
+            throw new RuntimeException("Sneaker not found");
+        }
+        for (Sneaker sneaker : sneakers) {
+            int quantity = quantities.get(sneaker.getId());
+            if (sneaker.getSeller() == null) {
+                throw new RuntimeException("Sneaker has no seller");
+            }
+            if (sneaker.getSeller().getId().equals(buyer.getId())) {
+                throw new RuntimeException("You cannot buy your own sneakers");
+            }
+            // Flash-sale stock is admitted by FlashSaleService and cannot be taken around it
+            if (sneaker.isFlashSale()) {
+                throw new RuntimeException(sneaker.getName() + " is in a flash sale and must be ordered on its own");
+            }
+            if (sneaker.getStatus() != Sneaker.SneakerStatus.AVAILABLE) {
+                throw new RuntimeException(sneaker.getName() + " is not available for purchase");
+            }
+            if (sneaker.getStock() == null || sneaker.getStock() < quantity) {
+                throw new RuntimeException(sneaker.getName() + " is out of stock");
+            }
+            if (sneaker.getPrice() == null || sneaker.getPrice().compareTo(java.math.BigDecimal.ZERO) <= 0) {
+                throw new RuntimeException("Invalid sneaker price");
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        List<Object[]> decrements = new ArrayList<>(sneakers.size());
+        for (Sneaker sneaker : sneakers) {
+            int quantity = quantities.get(sneaker.getId());
+            decrements.add(new Object[] { quantity, quantity, timestamp, sneaker.getId(), quantity });
+        }
+        int[] taken = jdbcTemplate.batchUpdate(CHECKOUT_DECREMENT_SQL, decrements);
+        for (int i = 0; i < taken.length; i++) {
+            // Another buyer got there between the checks and the update; the rollback returns the other items
+            if (taken[i] == 0) {
+                throw new RuntimeException(sneakers.get(i).getName() + " is out of stock");
+            }
+        }
+
+        List<Order> orders = new ArrayList<>();
+        for (Sneaker sneaker : sneakers) {
+            for (int n = quantities.get(sneaker.getId()); n > 0; n--) {
+                Order order = new Order();
+                order.setBuyer(buyer);
+                order.setSneaker(sneaker);
+                order.setSeller(sneaker.getSeller());
+                order.setTotalAmount(sneaker.getPrice());
+                order.setShippingAddress(request.getShippingAddress().trim());
+                order.setPhoneNumber(request.getPhoneNumber().trim());
+                order.setStatus(Order.OrderStatus.PENDING);
+                order.setOrderDate(now);
+                orders.add(order);
+            }
+        }
+        insertOrders(orders);
+        outboxService.recordOrdersCreated(orders);
+        for (Order order : orders) {
+            orderSchedulerService.scheduleDelivery(order.getId(), order.getOrderDate());
+        }
+
+        for (SneakerDocument updated : sneakerRepository.findDocumentsByIds(quantities.keySet())) {
+            eventPublisher.publishEvent(SneakerChangedEvent.stockChanged(updated));
+        }
+        for (Order order : orders) {
+            eventPublisher.publishEvent(EngagementEvent.ordered(order.getSneaker().getId()));
         }
-        sneakerRepository.save(sneaker);
+        return orders;
+    }
+
+    private void insertOrders(List<Order> orders) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(CHECKOUT_INSERT_SQL, new String[] { "id" }),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Order order = orders.get(i);
+                        ps.setLong(1, order.getBuyer().getId());
+                        ps.setLong(2, order.getSneaker().getId());
+                        ps.setLong(3, order.getSeller().getId());
+                        ps.setBigDecimal(4, order.getTotalAmount());
+                        ps.setTimestamp(5, Timestamp.valueOf(order.getOrderDate()));
+                        ps.setString(6, order.getShippingAddress());
+                        ps.setString(7, order.getPhoneNumber());
+                        ps.setString(8, order.getStatus().name());
+                    }
 
-        return orderRepository.save(order);
+                    @Override
+                    public int getBatchSize() {
+                        return orders.size();
+                    }
+                },
+                keys);
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < orders.size(); i++) {
+            orders.get(i).setId(((Number) generated.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    static void validateRequest(OrderRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Order request cannot be null");
+        }
+        if (request.getSneakerId() == null) {
+            throw new IllegalArgumentException("Sneaker ID is required");
+        }
+        if (request.getShippingAddress() == null || request.getShippingAddress().trim().isEmpty()) {
+            throw new IllegalArgumentException("Shipping address is required");
+        }
+        if (request.getPhoneNumber() == null || request.getPhoneNumber().trim().isEmpty()) {
+            throw new IllegalArgumentException("Phone number is required");
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Order> getMyOrdersPage(String cursor, Integer limit) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        User buyer = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        int pageSize = resolvePageSize(limit);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        PageRequest window = PageRequest.of(0, pageSize + 1);
+        List<Order> rows = after == null
+                ? orderRepository.findFirstBuyerPage(buyer, window)
+                : orderRepository.findBuyerPageAfter(buyer, after.timestamp(), after.id(), window);
+        return toPage(rows, pageSize);
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<Order> getSellerOrdersPage(String cursor, Integer limit) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        User seller = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        int pageSize = resolvePageSize(limit);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        PageRequest window = PageRequest.of(0, pageSize + 1);
+        List<Order> rows = after == null
+                ? orderRepository.findFirstSellerPage(seller, window)
+                : orderRepository.findSellerPageAfter(seller, after.timestamp(), after.id(), window);
+        return toPage(rows, pageSize);
+    }
+
+    private static CursorPage<Order> toPage(List<Order> rows, int pageSize) {
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<Order> page = rows.subList(0, pageSize);
+        Order last = page.get(pageSize - 1);
+        return new CursorPage<>(page, new KeysetCursor(last.getOrderDate(), last.getId()).encode());
+    }
+
+    private int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        return Math.min(limit, maxPageSize);
     }
 
     @Transactional(readOnly = true)
@@ -120,7 +374,15 @@ public class OrderService {
             throw new RuntimeException("Order ID cannot be null");
         }
         Order order = getOrderById(id);
+        Order.OrderStatus previous = order.getStatus();
         order.setStatus(status);
-        return orderRepository.save(order);
+        if (status != Order.OrderStatus.PENDING && status != Order.OrderStatus.SHIPPED) {
+            orderSchedulerService.cancelDelivery(id);
+        }
+        Order saved = orderRepository.save(order);
+        if (previous != status) {
+            outboxService.recordOrderStatusChanged(id, previous, status);
+        }
+        return saved;
     }
 }
@@ -0,0 +1,303 @@
+package com.example.demo.service;
+
+import com.example.demo.event.OutboxMessage;
+import com.example.demo.model.OutboxEvent;
+import com.example.demo.repository.OutboxEventRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Relays outbox rows to in-process subscribers. Each poll claims a batch of
+ * unpublished rows in id order, locking them with SKIP LOCKED and leasing
+ * them for outbox.lease-seconds so relays on other instances pass over them,
+ * and spreads them over single-threaded lanes by aggregate: events for one
+ * order, trade or message are handled one at a time and in commit order
+ * while different aggregates run in parallel. A row is marked published
+ * only after every subscriber took it. A failure holds back the rest of
+ * that aggregate's events and the row is retried with exponential backoff;
+ * after outbox.max-attempts it is parked, and the aggregate stays blocked
+ * until an admin retries the parked rows.
+ */
+@Service
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    public static final String ALL = "*";
+
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+
+    @FunctionalInterface
+    public interface Subscriber {
+        void onEvent(OutboxMessage message);
+    }
+
+    private record Subscription(String aggregateType, Subscriber subscriber) {}
+
+    private record LaneResult(List<OutboxEvent> delivered, List<OutboxEvent> failed) {}
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${outbox.lanes:4}")
+    private int laneCount;
+
+    @Value("${outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${outbox.retry-backoff-ms:1000}")
+    private long retryBackoffMillis;
+
+    @Value("${outbox.retention-hours:24}")
+    private long retentionHours;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean relaying = new AtomicBoolean();
+    private ExecutorService[] lanes;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong parked = new AtomicLong();
+    private volatile long lastLagMillis;
+    private volatile long maxLagMillis;
+    private volatile int lastBatchSize;
+    private volatile LocalDateTime lastRelayAt;
+
+    @PostConstruct
+    public void init() {
+        lanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String name = "outbox-lane-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // Undelivered rows stay unpublished and go out after the restart
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        for (ExecutorService lane : lanes) {
+            lane.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    /** Subscribes to events for one aggregate type, or to everything with {@link #ALL}. */
+    public void subscribe(String aggregateType, Subscriber subscriber) {
+        subscriptions.add(new Subscription(aggregateType, subscriber));
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:500}")
+    public int relay() {
+        if (!relaying.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            List<OutboxEvent> batch = claim();
+            lastBatchSize = batch.size();
+            lastRelayAt = LocalDateTime.now();
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            List<List<OutboxEvent>> byLane = new ArrayList<>(laneCount);
+            for (int i = 0; i < laneCount; i++) {
+                byLane.add(new ArrayList<>());
+            }
+            for (OutboxEvent event : batch) {
+                int lane = Math.floorMod(Objects.hash(event.getAggregateType(), event.getAggregateId()), laneCount);
+                byLane.get(lane).add(event);
+            }
+            List<Future<LaneResult>> running = new ArrayList<>(laneCount);
+            for (int i = 0; i < laneCount; i++) {
+                List<OutboxEvent> events = byLane.get(i);
+                if (!events.isEmpty()) {
+                    running.add(lanes[i].submit(() -> deliver(events)));
+                }
+            }
+
+            List<Long> done = new ArrayList<>();
+            List<OutboxEvent> retry = new ArrayList<>();
+            List<Long> park = new ArrayList<>();
+            Set<Long> held = new HashSet<>();
+            for (OutboxEvent event : batch) {
+                held.add(event.getId());
+            }
+            LocalDateTime now = LocalDateTime.now();
+            for (Future<LaneResult> future : running) {
+                LaneResult result = await(future);
+                result.delivered().forEach(event -> held.remove(event.getId()));
+                result.failed().forEach(event -> held.remove(event.getId()));
+                for (OutboxEvent event : result.delivered()) {
+                    done.add(event.getId());
+                    long lag = Duration.between(event.getCreatedAt(), now).toMillis();
+                    lastLagMillis = lag;
+                    maxLagMillis = Math.max(maxLagMillis, lag);
+                }
+                for (OutboxEvent event : result.failed()) {
+                    if (event.getAttempts() + 1 >= maxAttempts) {
+                        logger.error("Parking outbox event {} ({} {} {}) after {} attempts; later events of the aggregate wait for it",
+                                event.getId(), event.getEventType(), event.getAggregateType(), event.getAggregateId(), maxAttempts);
+                        parked.incrementAndGet();
+                        park.add(event.getId());
+                    } else {
+                        retry.add(event);
+                    }
+                }
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!done.isEmpty()) {
+                    outboxEventRepository.markPublished(done, now);
+                }
+                for (OutboxEvent event : retry) {
+                    // The failed row's own lease doubles as its backoff and holds back the rest of the aggregate
+                    outboxEventRepository.retryAt(event.getId(), now.plus(backoff(event.getAttempts())));
+                }
+                if (!park.isEmpty()) {
+                    outboxEventRepository.park(park, now);
+                }
+                if (!held.isEmpty()) {
+                    // Held back behind a failed event, which now blocks its aggregate by itself
+                    outboxEventRepository.lease(held, null);
+                }
+            });
+            return done.size();
+        } finally {
+            relaying.set(false);
+        }
+    }
+
+    /** Puts parked rows back in line, e.g. once the failing subscriber is fixed. */
+    public int retryParked() {
+        Integer released = transactionTemplate.execute(status -> outboxEventRepository.unparkAll());
+        return released != null ? released : 0;
+    }
+
+    @Scheduled(fixedRate = 3600000)
+    public void prunePublished() {
+        Integer removed = transactionTemplate.execute(status ->
+                outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minusHours(retentionHours)));
+        if (removed != null && removed > 0) {
+            logger.debug("Pruned {} published outbox events", removed);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        LocalDateTime oldest = outboxEventRepository.findOldestPendingCreatedAt();
+        stats.put("pending", outboxEventRepository.countByPublishedAtIsNull());
+        stats.put("parked", outboxEventRepository.countByPublishedAtIsNullAndParkedAtIsNotNull());
+        stats.put("oldestPendingAgeMillis", oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis());
+        stats.put("delivered", delivered.get());
+        stats.put("failed", failed.get());
+        stats.put("parkedTotal", parked.get());
+        stats.put("lastLagMillis", lastLagMillis);
+        stats.put("maxLagMillis", maxLagMillis);
+        stats.put("lastBatchSize", lastBatchSize);
+        stats.put("lastRelayAt", lastRelayAt);
+        stats.put("subscribers", subscriptions.size());
+        return stats;
+    }
+
+    /**
+     * Locks and leases the next batch in one short transaction, so delivery
+     * itself holds no locks and a relay that dies mid-batch only delays its
+     * rows until the lease runs out.
+     */
+    private List<OutboxEvent> claim() {
+        List<Long> ids = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> claimable = outboxEventRepository.lockClaimable(now, batchSize);
+            if (!claimable.isEmpty()) {
+                outboxEventRepository.lease(claimable, now.plusSeconds(leaseSeconds));
+            }
+            return claimable;
+        });
+        return ids == null || ids.isEmpty() ? List.of() : outboxEventRepository.findByIds(ids);
+    }
+
+    private Duration backoff(int attempts) {
+        long millis = retryBackoffMillis << Math.min(attempts, 20);
+        return Duration.ofMillis(Math.min(millis, MAX_BACKOFF.toMillis()));
+    }
+
+    private LaneResult deliver(List<OutboxEvent> events) {
+        List<OutboxEvent> ok = new ArrayList<>();
+        List<OutboxEvent> failures = new ArrayList<>();
+        // Once an aggregate fails, its later events wait so they are never seen out of order
+        Set<String> blocked = new HashSet<>();
+        for (OutboxEvent event : events) {
+            String aggregate = event.getAggregateType() + ":" + event.getAggregateId();
+            if (blocked.contains(aggregate)) {
+                continue;
+            }
+            OutboxMessage message = new OutboxMessage(event.getId(), event.getAggregateType(), event.getAggregateId(),
+                    event.getEventType(), event.getPayload(), event.getCreatedAt());
+            try {
+                for (Subscription subscription : subscriptions) {
+                    if (ALL.equals(subscription.aggregateType())
+                            || subscription.aggregateType().equals(event.getAggregateType())) {
+                        subscription.subscriber().onEvent(message);
+                    }
+                }
+                ok.add(event);
+                delivered.incrementAndGet();
+            } catch (RuntimeException e) {
+                logger.warn("Outbox subscriber failed on event {} ({}), will retry", event.getId(), event.getEventType(), e);
+                failures.add(event);
+                failed.incrementAndGet();
+                blocked.add(aggregate);
+            }
+        }
+        return new LaneResult(ok, failures);
+    }
+
+    private static LaneResult await(Future<LaneResult> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Outbox lane failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Outbox relay was interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Message;
+import com.example.demo.model.Order;
+import com.example.demo.model.OutboxEvent;
+import com.example.demo.model.Trade;
+import com.example.demo.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes outbox rows for order, trade and message changes. Callers must
+ * already be in the transaction that makes the change, so the event and the
+ * change commit or roll back together; OutboxRelay delivers the rows.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+    public static final String ORDER = "ORDER";
+    public static final String TRADE = "TRADE";
+    public static final String MESSAGE = "MESSAGE";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, payload, created_at, attempts) " +
+            "VALUES (?, ?, ?, ?, ?, 0)";
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public void recordOrderCreated(Order order) {
+        record(ORDER, order.getId(), "ORDER_CREATED", orderCreatedPayload(order));
+    }
+
+    /** Bulk form for checkouts and flash-sale batches, written in one JDBC batch. */
+    public void recordOrdersCreated(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        outboxEventRepository.flush();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            rows.add(new Object[] { ORDER, order.getId(), "ORDER_CREATED", serialize(orderCreatedPayload(order)), now });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    private static Map<String, Object> orderCreatedPayload(Order order) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("sneakerId", order.getSneaker().getId());
+        payload.put("buyerId", order.getBuyer().getId());
+        payload.put("sellerId", order.getSeller().getId());
+        payload.put("totalAmount", order.getTotalAmount());
+        payload.put("status", order.getStatus());
+        return payload;
+    }
+
+    public void recordOrderStatusChanged(Long orderId, Order.OrderStatus from, Order.OrderStatus to) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", orderId);
+        payload.put("from", from);
+        payload.put("to", to);
+        record(ORDER, orderId, "ORDER_STATUS_CHANGED", payload);
+    }
+
+    /** Bulk form for set-based transitions, written in one JDBC batch. */
+    public void recordOrderStatusChanges(Map<Long, Order.OrderStatus> previous, Order.OrderStatus to) {
+        if (previous.isEmpty()) {
+            return;
+        }
+        outboxEventRepository.flush();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(previous.size());
+        for (Map.Entry<Long, Order.OrderStatus> entry : previous.entrySet()) {
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("orderId", entry.getKey());
+            payload.put("from", entry.getValue());
+            payload.put("to", to);
+            rows.add(new Object[] { ORDER, entry.getKey(), "ORDER_STATUS_CHANGED", serialize(payload), now });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    public void recordTrade(Trade trade, String eventType) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("tradeId", trade.getId());
+        payload.put("requesterId", trade.getRequester().getId());
+        payload.put("ownerId", trade.getOwner().getId());
+        payload.put("offeredSneakerId", trade.getOfferedSneaker().getId());
+        payload.put("requestedSneakerId", trade.getRequestedSneaker().getId());
+        payload.put("status", trade.getStatus());
+        record(TRADE, trade.getId(), eventType, payload);
+    }
+
+    public void recordMessage(Message message, String eventType) {
+        // Ids only: message content stays out of the outbox
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("messageId", message.getId());
+        payload.put("senderId", message.getSender().getId());
+        payload.put("receiverId", message.getReceiver().getId());
+        payload.put("sneakerId", message.getSneaker() != null ? message.getSneaker().getId() : null);
+        payload.put("read", message.getIsRead());
+        record(MESSAGE, message.getId(), eventType, payload);
+    }
+
+    public void record(String aggregateType, Long aggregateId, String eventType, Map<String, ?> payload) {
+        // Flush the change first: its row lock then orders this insert behind any earlier writer of the same aggregate
+        outboxEventRepository.flush();
+        OutboxEvent event = new OutboxEvent();
+        event.setAggregateType(aggregateType);
+        event.setAggregateId(aggregateId);
+        event.setEventType(eventType);
+        event.setPayload(serialize(payload));
+        outboxEventRepository.save(event);
+    }
+
+    private String serialize(Map<String, ?> payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize outbox payload", e);
+        }
+    }
+}
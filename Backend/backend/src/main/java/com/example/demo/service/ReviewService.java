@@ -1,21 +1,33 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.ReviewRequest;
+import com.example.demo.event.SneakerChangedEvent;
 import com.example.demo.model.Review;
 import com.example.demo.model.Sneaker;
 import com.example.demo.model.User;
 import com.example.demo.repository.ReviewRepository;
+import com.example.demo.repository.SneakerRatingRepository;
 import com.example.demo.repository.SneakerRepository;
 import com.example.demo.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @Transactional
 public class ReviewService {
+    private static final Logger logger = LoggerFactory.getLogger(ReviewService.class);
+
     @Autowired
     private ReviewRepository reviewRepository;
 
@@ -25,6 +37,12 @@ public class ReviewService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SneakerRatingRepository sneakerRatingRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @SuppressWarnings("null")
     public Review createReview(ReviewRequest request) {
         if (request.getSneakerId() == null) {
@@ -48,7 +66,12 @@ public class ReviewService {
         review.setRating(request.getRating());
         review.setComment(request.getComment());
 
-        return reviewRepository.save(review);
+        Review saved = reviewRepository.save(review);
+        sneakerRatingRepository.addRating(sneakerId, saved.getRating());
+        // The rating is part of the exported listing, so incremental exports have to see the change
+        sneakerRepository.touch(sneakerId, LocalDateTime.now());
+        eventPublisher.publishEvent(SneakerChangedEvent.ratingChanged(sneakerId));
+        return saved;
     }
 
     @Transactional(readOnly = true)
@@ -64,6 +87,17 @@ public class ReviewService {
                 .toList();
     }
 
+    /**
+     * Strong ETag for a sneaker's review list, computed without loading the reviews.
+     */
+    @Transactional(readOnly = true)
+    public String getReviewsEtag(Long sneakerId) {
+        if (sneakerId == null) {
+            throw new RuntimeException("Sneaker ID cannot be null");
+        }
+        return "\"reviews-" + sneakerId + "-" + reviewRepository.findVersionBySneakerId(sneakerId) + "\"";
+    }
+
     public List<Review> getMyReviews() {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
         User user = userRepository.findByUsername(username)
@@ -83,6 +117,39 @@ public class ReviewService {
             throw new RuntimeException("You can only delete your own reviews");
         }
 
+        Long sneakerId = review.getSneaker().getId();
         reviewRepository.delete(review);
+        sneakerRatingRepository.removeRating(sneakerId, review.getRating());
+        sneakerRepository.touch(sneakerId, LocalDateTime.now());
+        eventPublisher.publishEvent(SneakerChangedEvent.ratingChanged(sneakerId));
+    }
+
+    /**
+     * Builds the rating aggregates on the first start after they were
+     * introduced, when reviews exist but sneaker_ratings is still empty.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillRatings() {
+        if (sneakerRatingRepository.count() == 0 && reviewRepository.count() > 0) {
+            Map<String, Object> result = rebuildRatings();
+            logger.info("Backfilled rating aggregates for {} sneakers", result.get("rebuilt"));
+        }
+    }
+
+    /**
+     * Recomputes every rating aggregate from the reviews table, e.g. after
+     * reviews were imported or deleted outside this service.
+     */
+    public Map<String, Object> rebuildRatings() {
+        // Touch listings that lose their aggregate and those that get one, so exports resend both
+        LocalDateTime now = LocalDateTime.now();
+        sneakerRepository.touchRated(now);
+        int removed = sneakerRatingRepository.deleteAllRatings();
+        int rebuilt = sneakerRatingRepository.insertAllFromReviews();
+        sneakerRepository.touchRated(now);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("removed", removed);
+        result.put("rebuilt", rebuilt);
+        return result;
     }
 }
@@ -0,0 +1,340 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.SneakerDocument;
+import com.example.demo.event.SneakerChangedEvent;
+import com.example.demo.repository.SneakerRepository;
+import jakarta.annotation.PostConstruct;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed per-value bitmaps over in-stock listings for facet filtering.
+ * Values are OR-ed within a facet and facets are AND-ed (or OR-ed) together;
+ * facet counts are bitmap intersection cardinalities, never SQL GROUP BYs.
+ */
+@Service
+public class SneakerFacetIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SneakerFacetIndex.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    public enum Facet {
+        BRAND, SIZE, COLOR, CONDITION, PRICE;
+
+        public String key() { return name().toLowerCase(Locale.ROOT); }
+    }
+
+    public record Result(List<Long> ids, long total, Long lastId, Map<String, Map<String, Long>> facets) {}
+
+    @Autowired
+    private SneakerRepository sneakerRepository;
+
+    @Value("${facets.price-bands:50,100,200,500}")
+    private String priceBandConfig;
+
+    private BigDecimal[] priceBands;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile State state = new State();
+    private volatile boolean ready = false;
+    private volatile boolean rebuilding = false;
+    private final ConcurrentLinkedQueue<SneakerChangedEvent> pendingDuringRebuild = new ConcurrentLinkedQueue<>();
+
+    @PostConstruct
+    public void init() {
+        priceBands = Arrays.stream(priceBandConfig.split(","))
+                .map(String::trim)
+                .map(BigDecimal::new)
+                .sorted()
+                .toArray(BigDecimal[]::new);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("Facet index could not be loaded", e);
+        }
+    }
+
+    public synchronized Map<String, Object> rebuild() {
+        long started = System.currentTimeMillis();
+        rebuilding = true;
+        try {
+            State fresh = new State();
+            long lastId = 0;
+            while (true) {
+                List<SneakerDocument> batch = sneakerRepository.findDocumentsAfter(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (SneakerDocument document : batch) {
+                    fresh.add(document, valuesOf(document));
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+            fresh.runOptimize();
+
+            lock.writeLock().lock();
+            try {
+                state = fresh;
+                rebuilding = false;
+                SneakerChangedEvent event;
+                while ((event = pendingDuringRebuild.poll()) != null) {
+                    apply(event);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+        } finally {
+            rebuilding = false;
+        }
+        logger.info("Facet index rebuilt with {} documents in {} ms",
+                state.all.getLongCardinality(), System.currentTimeMillis() - started);
+        return getStats();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSneakerChanged(SneakerChangedEvent event) {
+        if (event.getType() == SneakerChangedEvent.Type.RATING_CHANGED) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                pendingDuringRebuild.add(event);
+            }
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Filters listings by the selected facet values and returns one page of ids
+     * (newest first, strictly below {@code beforeId} when given) plus counts
+     * for every facet value under the current selection.
+     */
+    public Result filter(Map<Facet, List<String>> selections, boolean matchAll, Long beforeId, int limit) {
+        lock.readLock().lock();
+        try {
+            EnumMap<Facet, RoaringBitmap> selected = new EnumMap<>(Facet.class);
+            for (Map.Entry<Facet, List<String>> entry : selections.entrySet()) {
+                if (entry.getValue() == null || entry.getValue().isEmpty()) {
+                    continue;
+                }
+                RoaringBitmap union = new RoaringBitmap();
+                for (String value : entry.getValue()) {
+                    RoaringBitmap bitmap = state.bitmaps.get(entry.getKey()).get(normalize(value));
+                    if (bitmap != null) {
+                        union.or(bitmap);
+                    }
+                }
+                selected.put(entry.getKey(), union);
+            }
+
+            RoaringBitmap matching = combine(selected.values(), matchAll);
+            long total = matching.getLongCardinality();
+
+            RoaringBitmap window = matching;
+            if (beforeId != null) {
+                window = matching.clone();
+                window.remove(beforeId, 0x1_0000_0000L);
+            }
+            List<Long> ids = new ArrayList<>(limit);
+            IntIterator iterator = window.getReverseIntIterator();
+            while (iterator.hasNext() && ids.size() < limit + 1) {
+                ids.add(Integer.toUnsignedLong(iterator.next()));
+            }
+            Long lastId = null;
+            if (ids.size() > limit) {
+                ids = ids.subList(0, limit);
+                lastId = ids.get(limit - 1);
+            }
+
+            Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+            for (Facet facet : Facet.values()) {
+                // Disjunctive counting: a facet's own selection does not narrow its counts
+                RoaringBitmap base = state.all;
+                if (matchAll) {
+                    EnumMap<Facet, RoaringBitmap> others = new EnumMap<>(selected);
+                    others.remove(facet);
+                    base = combine(others.values(), true);
+                }
+                Map<String, Long> counts = new LinkedHashMap<>();
+                RoaringBitmap scope = base;
+                state.bitmaps.get(facet).entrySet().stream()
+                        .map(e -> Map.entry(state.labels.get(facet).get(e.getKey()),
+                                RoaringBitmap.andCardinality(scope, e.getValue())))
+                        .filter(e -> e.getValue() > 0)
+                        .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                        .forEach(e -> counts.put(e.getKey(), (long) e.getValue()));
+                facets.put(facet.key(), counts);
+            }
+            return new Result(ids, total, lastId, facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("ready", ready);
+            stats.put("documents", state.all.getLongCardinality());
+            long bytes = state.all.getLongSizeInBytes();
+            Map<String, Integer> values = new LinkedHashMap<>();
+            for (Facet facet : Facet.values()) {
+                values.put(facet.key(), state.bitmaps.get(facet).size());
+                for (RoaringBitmap bitmap : state.bitmaps.get(facet).values()) {
+                    bytes += bitmap.getLongSizeInBytes();
+                }
+            }
+            stats.put("values", values);
+            stats.put("bitmapBytes", bytes);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private RoaringBitmap combine(Collection<RoaringBitmap> bitmaps, boolean matchAll) {
+        if (bitmaps.isEmpty()) {
+            return state.all;
+        }
+        return matchAll ? FastAggregation.and(bitmaps.iterator()) : FastAggregation.or(bitmaps.iterator());
+    }
+
+    private void apply(SneakerChangedEvent event) {
+        state.remove(event.getSneakerId());
+        if (!event.isDeleted() && event.getDocument().isInStock()) {
+            state.add(event.getDocument(), valuesOf(event.getDocument()));
+        }
+    }
+
+    private String[] valuesOf(SneakerDocument document) {
+        String[] values = new String[Facet.values().length];
+        values[Facet.BRAND.ordinal()] = document.getBrand();
+        values[Facet.SIZE.ordinal()] = document.getSize();
+        values[Facet.COLOR.ordinal()] = document.getColor();
+        values[Facet.CONDITION.ordinal()] = document.getCondition();
+        values[Facet.PRICE.ordinal()] = priceBand(document.getPrice());
+        return values;
+    }
+
+    private String priceBand(BigDecimal price) {
+        if (price == null) {
+            return null;
+        }
+        BigDecimal lower = BigDecimal.ZERO;
+        for (BigDecimal upper : priceBands) {
+            if (price.compareTo(upper) < 0) {
+                return lower.toPlainString() + "-" + upper.toPlainString();
+            }
+            lower = upper;
+        }
+        return lower.toPlainString() + "+";
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class State {
+        private final EnumMap<Facet, Map<String, RoaringBitmap>> bitmaps = new EnumMap<>(Facet.class);
+        // Display label for each normalized value, taken from the first listing that used it
+        private final EnumMap<Facet, Map<String, String>> labels = new EnumMap<>(Facet.class);
+        private final RoaringBitmap all = new RoaringBitmap();
+        private final Map<Integer, String[]> documentValues = new HashMap<>();
+
+        State() {
+            for (Facet facet : Facet.values()) {
+                bitmaps.put(facet, new HashMap<>());
+                labels.put(facet, new HashMap<>());
+            }
+        }
+
+        void add(SneakerDocument document, String[] values) {
+            if (document.getId() > Integer.toUnsignedLong(-1)) {
+                logger.warn("Sneaker id {} is too large for the facet index", document.getId());
+                return;
+            }
+            int id = document.getId().intValue();
+            String[] normalized = new String[values.length];
+            for (Facet facet : Facet.values()) {
+                String value = normalize(values[facet.ordinal()]);
+                if (value.isEmpty()) {
+                    continue;
+                }
+                normalized[facet.ordinal()] = value;
+                bitmaps.get(facet).computeIfAbsent(value, k -> new RoaringBitmap()).add(id);
+                labels.get(facet).putIfAbsent(value, values[facet.ordinal()].trim());
+            }
+            documentValues.put(id, normalized);
+            all.add(id);
+        }
+
+        void remove(Long sneakerId) {
+            if (sneakerId > Integer.toUnsignedLong(-1)) {
+                return;
+            }
+            int id = sneakerId.intValue();
+            String[] values = documentValues.remove(id);
+            if (values == null) {
+                return;
+            }
+            for (Facet facet : Facet.values()) {
+                String value = values[facet.ordinal()];
+                if (value == null) {
+                    continue;
+                }
+                RoaringBitmap bitmap = bitmaps.get(facet).get(value);
+                if (bitmap != null) {
+                    bitmap.remove(id);
+                    if (bitmap.isEmpty()) {
+                        bitmaps.get(facet).remove(value);
+                        labels.get(facet).remove(value);
+                    }
+                }
+            }
+            all.remove(id);
+        }
+
+        void runOptimize() {
+            all.runOptimize();
+            for (Map<String, RoaringBitmap> values : bitmaps.values()) {
+                values.values().forEach(RoaringBitmap::runOptimize);
+            }
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.SneakerDocument;
+import com.example.demo.dto.SneakerRequest;
+import com.example.demo.event.SneakerChangedEvent;
+import com.example.demo.model.Sneaker;
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bulk listing import for sellers. Rows are parsed one at a time from the
+ * request stream, validated with the same rules as SneakerService.createSneaker
+ * and written in JDBC batches, one transaction per batch. A result line is
+ * streamed back for every row, so neither the upload nor the report is ever
+ * held in memory.
+ */
+@Service
+public class SneakerImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SneakerImportService.class);
+
+    public enum Format {
+        CSV, NDJSON;
+
+        /**
+         * Uses the explicit format parameter when given, otherwise the request content type.
+         */
+        public static Format resolve(String format, String contentType) {
+            String value = format != null ? format : contentType;
+            if (value != null) {
+                value = value.toLowerCase(Locale.ROOT);
+                if (value.contains("csv")) {
+                    return CSV;
+                }
+                if (value.contains("json")) {
+                    return NDJSON;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported import format; send text/csv or application/x-ndjson");
+        }
+    }
+
+    private static final String INSERT_SNEAKER =
+            "INSERT INTO sneakers (name, brand, description, price, size, color, `condition`, stock, " +
+            "cover_image, seller_id, status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_IMAGE = "INSERT INTO sneaker_images (sneaker_id, image_order, image_url) VALUES (?, ?, ?)";
+
+    private static final List<String> CSV_COLUMNS = List.of(
+            "name", "brand", "description", "price", "size", "color", "condition", "stock", "imageurls");
+
+    // Longest single row we will buffer; a row this size is almost certainly a malformed quote
+    private static final int MAX_ROW_CHARS = 1 << 20;
+
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final int MAX_DESCRIPTION_LENGTH = 2000;
+
+    @Autowired
+    private SneakerService sneakerService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${import.batch-size:200}")
+    private int batchSize;
+
+    @Value("${import.max-rows:5000}")
+    private int maxRows;
+
+    private record PendingRow(long row, Sneaker sneaker) {}
+
+    private static final class Counts {
+        long created;
+        long failed;
+    }
+
+    /**
+     * Imports listings for the current user, writing one NDJSON result line
+     * per input row followed by a summary line.
+     */
+    public void importListings(InputStream input, Format format, OutputStream output) throws IOException {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        User seller = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        Reader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        Counts counts = new Counts();
+        List<PendingRow> batch = new ArrayList<>(batchSize);
+        // Results of rows that failed validation wait here so output stays in row order
+        List<Map<String, Object>> held = new ArrayList<>();
+        long rows = 0;
+        String abortReason = null;
+
+        try {
+            String[] header = format == Format.CSV ? readCsvHeader(reader) : null;
+            while (true) {
+                String line = null;
+                List<String> fields = null;
+                if (format == Format.CSV) {
+                    fields = readCsvRecord(reader);
+                    if (fields == null) {
+                        break;
+                    }
+                    if (fields.size() == 1 && fields.get(0).isBlank()) {
+                        continue;
+                    }
+                } else {
+                    line = readLine(reader);
+                    if (line == null) {
+                        break;
+                    }
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                }
+                if (rows == maxRows) {
+                    abortReason = "Import is limited to " + maxRows + " rows";
+                    break;
+                }
+                rows++;
+
+                try {
+                    SneakerRequest request = format == Format.CSV ? fromCsv(header, fields) : fromJson(line);
+                    Sneaker sneaker = sneakerService.buildListing(request, seller);
+                    checkColumnLengths(sneaker);
+                    batch.add(new PendingRow(rows, sneaker));
+                    held.add(null);
+                } catch (RuntimeException e) {
+                    if (batch.isEmpty()) {
+                        write(writer, failed(rows, e));
+                        counts.failed++;
+                    } else {
+                        held.add(failed(rows, e));
+                    }
+                }
+
+                if (batch.size() >= batchSize) {
+                    flush(seller, batch, held, writer, counts);
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            abortReason = e.getMessage();
+        }
+        flush(seller, batch, held, writer, counts);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("done", abortReason == null);
+        summary.put("rows", rows);
+        summary.put("created", counts.created);
+        summary.put("failed", counts.failed);
+        if (abortReason != null) {
+            summary.put("error", abortReason);
+        }
+        write(writer, summary);
+        writer.flush();
+        logger.info("Bulk import by {}: {} rows, {} created, {} failed", username, rows, counts.created, counts.failed);
+    }
+
+    /**
+     * Inserts the pending rows and writes their results, interleaved with the
+     * held validation failures in row order. A batch that fails as a whole is
+     * retried row by row so one bad row cannot sink its neighbours.
+     */
+    private void flush(User seller, List<PendingRow> batch, List<Map<String, Object>> held,
+                       Writer writer, Counts counts) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Map<String, Object>> results = new ArrayList<>(batch.size());
+        try {
+            List<Long> ids = insertBatch(seller, batch);
+            for (int i = 0; i < batch.size(); i++) {
+                results.add(created(batch.get(i).row(), ids.get(i)));
+            }
+        } catch (RuntimeException e) {
+            // Not only DataAccessException: a driver that returns too few keys fails the batch with IllegalStateException
+            logger.warn("Import batch of {} rows failed, retrying individually: {}", batch.size(), e.getMessage());
+            results.clear();
+            for (PendingRow pending : batch) {
+                try {
+                    results.add(created(pending.row(), insertBatch(seller, List.of(pending)).get(0)));
+                } catch (RuntimeException rowError) {
+                    logger.warn("Import row {} failed: {}", pending.row(), rowError.getMessage());
+                    results.add(failed(pending.row(), new RuntimeException("Could not save listing")));
+                }
+            }
+        }
+
+        int next = 0;
+        for (Map<String, Object> result : held) {
+            Map<String, Object> line = result != null ? result : results.get(next++);
+            if ("CREATED".equals(line.get("status"))) {
+                counts.created++;
+            } else {
+                counts.failed++;
+            }
+            write(writer, line);
+        }
+        writer.flush();
+        batch.clear();
+        held.clear();
+    }
+
+    private List<Long> insertBatch(User seller, List<PendingRow> rows) {
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+                List<Long> generated = new ArrayList<>(rows.size());
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_SNEAKER, Statement.RETURN_GENERATED_KEYS)) {
+                    for (PendingRow pending : rows) {
+                        Sneaker sneaker = pending.sneaker();
+                        statement.setString(1, sneaker.getName());
+                        statement.setString(2, sneaker.getBrand());
+                        statement.setString(3, sneaker.getDescription());
+                        statement.setBigDecimal(4, sneaker.getPrice());
+                        statement.setString(5, sneaker.getSize());
+                        statement.setString(6, sneaker.getColor());
+                        statement.setString(7, sneaker.getCondition());
+                        statement.setInt(8, sneaker.getStock());
+                        statement.setString(9, sneaker.getCoverImage());
+                        statement.setLong(10, seller.getId());
+                        statement.setString(11, sneaker.getStatus().name());
+                        statement.setTimestamp(12, Timestamp.valueOf(sneaker.getCreatedAt()));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        while (keys.next()) {
+                            generated.add(keys.getLong(1));
+                        }
+                    }
+                }
+                if (generated.size() != rows.size()) {
+                    throw new IllegalStateException("Driver returned " + generated.size() + " keys for " + rows.size() + " rows");
+                }
+
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_IMAGE)) {
+                    for (int i = 0; i < rows.size(); i++) {
+                        List<String> imageUrls = rows.get(i).sneaker().getImageUrls();
+                        for (int position = 0; position < imageUrls.size(); position++) {
+                            statement.setLong(1, generated.get(i));
+                            statement.setInt(2, position);
+                            statement.setString(3, imageUrls.get(position));
+                            statement.addBatch();
+                        }
+                    }
+                    statement.executeBatch();
+                }
+                return generated;
+            });
+
+            // Published inside the transaction so listeners only see committed rows
+            for (int i = 0; i < rows.size(); i++) {
+                Sneaker sneaker = rows.get(i).sneaker();
+                sneaker.setId(ids.get(i));
+                eventPublisher.publishEvent(SneakerChangedEvent.created(SneakerDocument.of(sneaker)));
+            }
+            return ids;
+        });
+    }
+
+    private SneakerRequest fromJson(String line) {
+        try {
+            return objectMapper.readValue(line, SneakerRequest.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Invalid JSON row");
+        }
+    }
+
+    private SneakerRequest fromCsv(String[] header, List<String> fields) {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < header.length && i < fields.size(); i++) {
+            values.put(header[i], fields.get(i).trim());
+        }
+        SneakerRequest request = new SneakerRequest();
+        request.setName(values.get("name"));
+        request.setBrand(values.get("brand"));
+        request.setDescription(values.get("description"));
+        request.setSize(values.get("size"));
+        request.setColor(values.get("color"));
+        request.setCondition(emptyToNull(values.get("condition")));
+        String price = values.get("price");
+        if (price != null && !price.isEmpty()) {
+            try {
+                request.setPrice(new BigDecimal(price));
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Invalid price");
+            }
+        }
+        String stock = values.get("stock");
+        if (stock != null && !stock.isEmpty()) {
+            try {
+                request.setStock(Integer.parseInt(stock));
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Invalid stock");
+            }
+        }
+        String images = values.get("imageurls");
+        if (images != null && !images.isEmpty()) {
+            request.setImageUrls(Arrays.asList(images.split("\\|")));
+        }
+        return request;
+    }
+
+    private String[] readCsvHeader(Reader reader) throws IOException {
+        List<String> header = readCsvRecord(reader);
+        if (header == null) {
+            throw new IllegalArgumentException("CSV header row is missing");
+        }
+        String[] columns = new String[header.size()];
+        for (int i = 0; i < columns.length; i++) {
+            String column = header.get(i).trim().toLowerCase(Locale.ROOT);
+            if (i == 0 && column.startsWith("\uFEFF")) {
+                column = column.substring(1);
+            }
+            if (!CSV_COLUMNS.contains(column)) {
+                throw new IllegalArgumentException("Unknown CSV column: " + header.get(i).trim());
+            }
+            columns[i] = column;
+        }
+        return columns;
+    }
+
+    private static void checkColumnLengths(Sneaker sneaker) {
+        // The entity path would fail at flush; here it would fail the whole batch
+        if (sneaker.getName().length() > MAX_TEXT_LENGTH || sneaker.getBrand().length() > MAX_TEXT_LENGTH
+                || sneaker.getSize().length() > MAX_TEXT_LENGTH || sneaker.getColor().length() > MAX_TEXT_LENGTH
+                || sneaker.getCondition().length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("Text fields must not exceed " + MAX_TEXT_LENGTH + " characters");
+        }
+        if (sneaker.getDescription().length() > MAX_DESCRIPTION_LENGTH) {
+            throw new IllegalArgumentException("Description must not exceed " + MAX_DESCRIPTION_LENGTH + " characters");
+        }
+    }
+
+    /**
+     * Reads one RFC 4180 record: comma separated, optionally double-quoted
+     * fields, quotes escaped by doubling, line breaks allowed inside quotes.
+     * Returns null at end of input.
+     */
+    static List<String> readCsvRecord(Reader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean afterQuote = false;
+        int length = 0;
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        while (c != -1) {
+            if (++length > MAX_ROW_CHARS) {
+                throw new IllegalArgumentException("Row exceeds " + MAX_ROW_CHARS + " characters");
+            }
+            char ch = (char) c;
+            if (quoted) {
+                if (ch == '"') {
+                    quoted = false;
+                    afterQuote = true;
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                // A doubled quote inside a quoted field reopens it with a literal quote
+                if (afterQuote) {
+                    field.append('"');
+                }
+                quoted = true;
+                afterQuote = false;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                afterQuote = false;
+            } else if (ch == '\n') {
+                break;
+            } else if (ch != '\r') {
+                field.append(ch);
+                afterQuote = false;
+            }
+            c = reader.read();
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    static String readLine(Reader reader) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        while (c != -1 && c != '\n') {
+            if (line.length() == MAX_ROW_CHARS) {
+                throw new IllegalArgumentException("Row exceeds " + MAX_ROW_CHARS + " characters");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+            c = reader.read();
+        }
+        return line.toString();
+    }
+
+    private void write(Writer writer, Map<String, Object> line) throws IOException {
+        writer.write(objectMapper.writeValueAsString(line));
+        writer.write('\n');
+    }
+
+    private static Map<String, Object> created(long row, Long id) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("row", row);
+        result.put("status", "CREATED");
+        result.put("id", id);
+        return result;
+    }
+
+    private static Map<String, Object> failed(long row, RuntimeException e) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("row", row);
+        result.put("status", "FAILED");
+        result.put("error", e.getMessage());
+        return result;
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,567 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.SneakerDocument;
+import com.example.demo.event.SneakerChangedEvent;
+import com.example.demo.repository.SneakerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+import java.util.regex.Pattern;
+
+/**
+ * In-process inverted index over in-stock listings. Name, brand and color are
+ * indexed as whole tokens plus character trigrams so substring queries still
+ * match; the description is indexed by whole tokens only to keep memory flat.
+ * Results are ranked by field weight and match quality, newest first on ties.
+ * Name and brand tokens also get a bigram index over the vocabulary itself,
+ * which drives typo-tolerant matching with a bounded edit distance.
+ */
+@Service
+public class SneakerSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SneakerSearchIndex.class);
+
+    public enum Field {
+        NAME(3.0f, true, true), BRAND(2.0f, true, true), COLOR(1.0f, true, false), DESCRIPTION(0.5f, false, false);
+
+        private final float weight;
+        private final boolean grams;
+        private final boolean fuzzy;
+
+        Field(float weight, boolean grams, boolean fuzzy) {
+            this.weight = weight;
+            this.grams = grams;
+            this.fuzzy = fuzzy;
+        }
+    }
+
+    private static final int GRAM = 3;
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final float EXACT_BOOST = 2.0f;
+    private static final float PREFIX_BOOST = 1.5f;
+    // Closest vocabulary terms expanded per query token; keeps common misspellings from fanning out
+    private static final int MAX_FUZZY_EXPANSIONS = 8;
+    private static final Pattern TOKEN_SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    @Autowired
+    private SneakerRepository sneakerRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Segment segment = new Segment();
+    private volatile boolean ready = false;
+
+    // Changes that arrive while a rebuild is scanning the table are replayed after the swap
+    private volatile boolean rebuilding = false;
+    private final ConcurrentLinkedQueue<SneakerChangedEvent> pendingDuringRebuild = new ConcurrentLinkedQueue<>();
+
+    private volatile long lastRebuildMillis;
+    private volatile LocalDateTime lastRebuildAt;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("Search index could not be loaded, falling back to database search", e);
+        }
+    }
+
+    public synchronized Map<String, Object> rebuild() {
+        long started = System.currentTimeMillis();
+        rebuilding = true;
+        try {
+            Segment fresh = new Segment();
+            long lastId = 0;
+            while (true) {
+                List<SneakerDocument> batch = sneakerRepository.findDocumentsAfter(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (SneakerDocument document : batch) {
+                    fresh.add(document);
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+
+            lock.writeLock().lock();
+            try {
+                segment = fresh;
+                rebuilding = false;
+                SneakerChangedEvent event;
+                while ((event = pendingDuringRebuild.poll()) != null) {
+                    apply(event);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+        } finally {
+            rebuilding = false;
+        }
+        lastRebuildMillis = System.currentTimeMillis() - started;
+        lastRebuildAt = LocalDateTime.now();
+        logger.info("Search index rebuilt with {} documents in {} ms", segment.forward.size(), lastRebuildMillis);
+        return getStats();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSneakerChanged(SneakerChangedEvent event) {
+        if (event.getType() == SneakerChangedEvent.Type.RATING_CHANGED) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                pendingDuringRebuild.add(event);
+            }
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns ids of in-stock listings matching every query token in at least
+     * one of the given fields, best match first.
+     */
+    public List<Long> search(String query, Collection<Field> fields, int limit) {
+        return search(query, fields, limit, false);
+    }
+
+    /**
+     * Same as {@link #search(String, Collection, int)}; with {@code fuzzy}, name
+     * and brand tokens also match vocabulary terms within a small edit distance
+     * (one edit for 4-5 characters, two from 6), scored below exact and substring hits.
+     */
+    public List<Long> search(String query, Collection<Field> fields, int limit, boolean fuzzy) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Float> scores = null;
+            for (String token : queryTokens) {
+                Map<Long, Float> tokenScores = new HashMap<>();
+                for (Field field : fields) {
+                    segment.match(field, token, tokenScores);
+                    if (fuzzy && field.fuzzy) {
+                        segment.fuzzyMatch(field, token, tokenScores);
+                    }
+                }
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    // Every query token has to match somewhere
+                    Map<Long, Float> combined = new HashMap<>();
+                    for (Map.Entry<Long, Float> entry : scores.entrySet()) {
+                        Float score = tokenScores.get(entry.getKey());
+                        if (score != null) {
+                            combined.put(entry.getKey(), entry.getValue() + score);
+                        }
+                    }
+                    scores = combined;
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Float>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.<Long, Float>comparingByKey().reversed()))
+                    .limit(limit)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("ready", ready);
+            stats.put("documents", segment.forward.size());
+            stats.put("terms", segment.termCount());
+            stats.put("postings", segment.postingCount());
+            stats.put("fuzzyGrams", segment.vocabularyGramCount());
+            stats.put("estimatedBytes", segment.estimateBytes());
+            stats.put("lastRebuildMillis", lastRebuildMillis);
+            stats.put("lastRebuildAt", lastRebuildAt);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(SneakerChangedEvent event) {
+        segment.remove(event.getSneakerId());
+        if (!event.isDeleted() && event.getDocument().isInStock()) {
+            segment.add(event.getDocument());
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : TOKEN_SPLIT.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * One complete copy of the index, so a rebuild can be assembled off to the side and swapped in.
+     */
+    private static final class Segment {
+        private final EnumMap<Field, TreeMap<String, Postings>> tokens = new EnumMap<>(Field.class);
+        private final EnumMap<Field, HashMap<String, Postings>> grams = new EnumMap<>(Field.class);
+        // Padded bigram -> vocabulary tokens containing it, for fuzzy candidate lookup
+        private final EnumMap<Field, HashMap<String, Set<String>>> vocabulary = new EnumMap<>(Field.class);
+        // Terms each document was indexed under, needed to unindex it again
+        private final HashMap<Long, TermRef[]> forward = new HashMap<>();
+
+        Segment() {
+            for (Field field : Field.values()) {
+                tokens.put(field, new TreeMap<>());
+                grams.put(field, new HashMap<>());
+                vocabulary.put(field, new HashMap<>());
+            }
+        }
+
+        void add(SneakerDocument document) {
+            long id = document.getId();
+            List<TermRef> refs = new ArrayList<>();
+            addField(id, Field.NAME, document.getName(), refs);
+            addField(id, Field.BRAND, document.getBrand(), refs);
+            addField(id, Field.COLOR, document.getColor(), refs);
+            addField(id, Field.DESCRIPTION, document.getDescription(), refs);
+            forward.put(id, refs.toArray(new TermRef[0]));
+        }
+
+        private void addField(long id, Field field, String text, List<TermRef> refs) {
+            Set<String> fieldTokens = new LinkedHashSet<>(tokenize(text));
+            Set<String> fieldGrams = new LinkedHashSet<>();
+            for (String token : fieldTokens) {
+                tokens.get(field).computeIfAbsent(token, k -> {
+                    if (field.fuzzy) {
+                        for (String gram : paddedBigrams(k)) {
+                            vocabulary.get(field).computeIfAbsent(gram, g -> new HashSet<>()).add(k);
+                        }
+                    }
+                    return new Postings();
+                }).add(id);
+                refs.add(new TermRef(field, false, token));
+                if (field.grams) {
+                    for (int i = 0; i + GRAM <= token.length(); i++) {
+                        fieldGrams.add(token.substring(i, i + GRAM));
+                    }
+                }
+            }
+            for (String gram : fieldGrams) {
+                grams.get(field).computeIfAbsent(gram, k -> new Postings()).add(id);
+                refs.add(new TermRef(field, true, gram));
+            }
+        }
+
+        void remove(long id) {
+            TermRef[] refs = forward.remove(id);
+            if (refs == null) {
+                return;
+            }
+            for (TermRef ref : refs) {
+                Map<String, Postings> map = ref.gram ? grams.get(ref.field) : tokens.get(ref.field);
+                Postings postings = map.get(ref.term);
+                if (postings != null && postings.remove(id) && postings.size == 0) {
+                    map.remove(ref.term);
+                    if (!ref.gram && ref.field.fuzzy) {
+                        unindexVocabulary(ref.field, ref.term);
+                    }
+                }
+            }
+        }
+
+        void match(Field field, String token, Map<Long, Float> scores) {
+            Postings exact = tokens.get(field).get(token);
+            if (exact != null) {
+                exact.forEach(id -> scores.merge(id, field.weight * EXACT_BOOST, Math::max));
+            }
+
+            if (token.length() < GRAM || !field.grams) {
+                // Too short for trigrams: fall back to a prefix scan over whole tokens
+                SortedMap<String, Postings> prefixed = tokens.get(field).subMap(token, token + Character.MAX_VALUE);
+                for (Postings postings : prefixed.values()) {
+                    postings.forEach(id -> scores.merge(id, field.weight * PREFIX_BOOST, Math::max));
+                }
+                return;
+            }
+
+            // Substring match: the document must contain every trigram of the token
+            List<Postings> lists = new ArrayList<>();
+            for (int i = 0; i + GRAM <= token.length(); i++) {
+                Postings postings = grams.get(field).get(token.substring(i, i + GRAM));
+                if (postings == null) {
+                    return;
+                }
+                lists.add(postings);
+            }
+            lists.sort((a, b) -> Integer.compare(a.size, b.size));
+            Postings smallest = lists.get(0);
+            smallest.forEach(id -> {
+                for (int i = 1; i < lists.size(); i++) {
+                    if (!lists.get(i).contains(id)) {
+                        return;
+                    }
+                }
+                scores.merge(id, field.weight, Math::max);
+            });
+        }
+
+        /**
+         * Adds hits for vocabulary terms within the token's edit budget. Candidates
+         * come from shared padded bigrams (an edit changes at most two, a swap
+         * three), then the distance is verified; the closest and most common
+         * terms win.
+         */
+        void fuzzyMatch(Field field, String token, Map<Long, Float> scores) {
+            int maxDistance = token.length() >= 6 ? 2 : token.length() >= 4 ? 1 : 0;
+            if (maxDistance == 0) {
+                return;
+            }
+            Set<String> queryGrams = paddedBigrams(token);
+            Map<String, Integer> shared = new HashMap<>();
+            for (String gram : queryGrams) {
+                Set<String> terms = vocabulary.get(field).get(gram);
+                if (terms != null) {
+                    for (String term : terms) {
+                        shared.merge(term, 1, Integer::sum);
+                    }
+                }
+            }
+            int minShared = Math.max(1, queryGrams.size() - 3 * maxDistance);
+
+            List<FuzzyCandidate> candidates = new ArrayList<>();
+            for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+                String term = entry.getKey();
+                if (entry.getValue() < minShared || Math.abs(term.length() - token.length()) > maxDistance) {
+                    continue;
+                }
+                int distance = boundedDistance(token, term, maxDistance);
+                if (distance > 0 && distance <= maxDistance) {
+                    candidates.add(new FuzzyCandidate(term, distance, tokens.get(field).get(term)));
+                }
+            }
+            candidates.sort(Comparator.comparingInt(FuzzyCandidate::distance)
+                    .thenComparing(Comparator.comparingInt((FuzzyCandidate c) -> c.postings().size).reversed())
+                    .thenComparing(FuzzyCandidate::term));
+            for (int i = 0; i < candidates.size() && i < MAX_FUZZY_EXPANSIONS; i++) {
+                FuzzyCandidate candidate = candidates.get(i);
+                float score = field.weight / (1 + candidate.distance());
+                candidate.postings().forEach(id -> scores.merge(id, score, Math::max));
+            }
+        }
+
+        private void unindexVocabulary(Field field, String token) {
+            for (String gram : paddedBigrams(token)) {
+                Set<String> terms = vocabulary.get(field).get(gram);
+                if (terms != null && terms.remove(token) && terms.isEmpty()) {
+                    vocabulary.get(field).remove(gram);
+                }
+            }
+        }
+
+        long termCount() {
+            long count = 0;
+            for (Field field : Field.values()) {
+                count += tokens.get(field).size() + grams.get(field).size();
+            }
+            return count;
+        }
+
+        long vocabularyGramCount() {
+            long count = 0;
+            for (Field field : Field.values()) {
+                count += vocabulary.get(field).size();
+            }
+            return count;
+        }
+
+        long postingCount() {
+            long count = 0;
+            for (Field field : Field.values()) {
+                for (Postings postings : tokens.get(field).values()) {
+                    count += postings.size;
+                }
+                for (Postings postings : grams.get(field).values()) {
+                    count += postings.size;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * Rough heap estimate from typical 64-bit object sizes with compressed oops.
+         */
+        long estimateBytes() {
+            long bytes = 0;
+            for (Field field : Field.values()) {
+                for (Map.Entry<String, Postings> entry : tokens.get(field).entrySet()) {
+                    bytes += 40 + stringBytes(entry.getKey()) + entry.getValue().estimateBytes();
+                }
+                for (Map.Entry<String, Postings> entry : grams.get(field).entrySet()) {
+                    bytes += 32 + stringBytes(entry.getKey()) + entry.getValue().estimateBytes();
+                }
+            }
+            for (TermRef[] refs : forward.values()) {
+                bytes += 32 + 16 + 4L * refs.length + 24L * refs.length;
+            }
+            return bytes;
+        }
+
+        private static long stringBytes(String value) {
+            return 24 + 16 + value.length();
+        }
+    }
+
+    private record TermRef(Field field, boolean gram, String term) {}
+
+    private record FuzzyCandidate(String term, int distance, Postings postings) {}
+
+    /**
+     * Bigrams of the token padded with a space on each side, so its first and
+     * last letters are represented too. Bigrams rather than trigrams keep a
+     * swapped pair of letters from hiding every shared gram in a short word.
+     */
+    static Set<String> paddedBigrams(String token) {
+        String padded = " " + token + " ";
+        Set<String> result = new LinkedHashSet<>();
+        for (int i = 0; i + 2 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 2));
+        }
+        return result;
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent
+     * transpositions), giving up as soon as it must exceed {@code max}.
+     * Returns {@code max + 1} in that case.
+     */
+    static int boundedDistance(String a, String b, int max) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > max) {
+            return max + 1;
+        }
+        int[] previous2 = new int[m + 1];
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[m], max + 1);
+    }
+
+    /**
+     * Sorted, growable array of document ids. Ids are assigned in increasing
+     * order, so adds are almost always appends.
+     */
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int size;
+
+        void add(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        void forEach(LongConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(ids[i]);
+            }
+        }
+
+        long estimateBytes() {
+            return 16 + 16 + 8L * ids.length;
+        }
+    }
+}
@@ -1,15 +1,46 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.BulkSneakerUpdateRequest;
+import com.example.demo.dto.BulkSneakerUpdateResponse;
+import com.example.demo.dto.CursorPage;
+import com.example.demo.dto.FacetFilterResponse;
+import com.example.demo.dto.KeysetCursor;
+import com.example.demo.dto.SneakerCard;
+import com.example.demo.dto.SneakerDocument;
 import com.example.demo.dto.SneakerRequest;
+import com.example.demo.dto.SneakerResponse;
+import com.example.demo.event.SneakerChangedEvent;
+import com.example.demo.exception.IndexNotReadyException;
 import com.example.demo.model.Sneaker;
+import com.example.demo.model.SneakerRating;
+import com.example.demo.model.SneakerTombstone;
 import com.example.demo.model.User;
+import com.example.demo.repository.SneakerEngagementRepository;
+import com.example.demo.repository.SneakerRatingRepository;
 import com.example.demo.repository.SneakerRepository;
+import com.example.demo.repository.SneakerTombstoneRepository;
 import com.example.demo.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -20,7 +51,77 @@ public class SneakerService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SneakerRatingRepository sneakerRatingRepository;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Autowired
+    private SneakerSearchIndex searchIndex;
+
+    @Autowired
+    private SneakerFacetIndex facetIndex;
+
+    @Autowired
+    private SneakerSimilarIndex similarIndex;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    @Autowired
+    private SneakerEngagementRepository sneakerEngagementRepository;
+
+    @Autowired
+    private SneakerTombstoneRepository sneakerTombstoneRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${catalog.page.default-size:24}")
+    private int defaultPageSize;
+
+    @Value("${catalog.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${search.max-results:100}")
+    private int maxSearchResults;
+
+    @Value("${similar.max-results:12}")
+    private int maxSimilarResults;
+
+    // Status only depends on the new stock and the old status, the same rule as updateSneaker
+    private static final String BULK_UPDATE_SQL =
+            "UPDATE sneakers SET " +
+            "status = CASE WHEN ? IS NULL THEN status WHEN ? = 0 THEN 'SOLD' " +
+            "WHEN status = 'SOLD' THEN 'AVAILABLE' ELSE status END, " +
+            "price = COALESCE(?, price), stock = COALESCE(?, stock), updated_at = ? " +
+            "WHERE id = ? AND seller_id = ?";
+
+    private static final int[] BULK_UPDATE_TYPES = {
+            Types.INTEGER, Types.INTEGER, Types.DECIMAL, Types.INTEGER, Types.TIMESTAMP, Types.BIGINT, Types.BIGINT
+    };
+
     public Sneaker createSneaker(SneakerRequest request) {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        User seller = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        Sneaker saved = sneakerRepository.save(buildListing(request, seller));
+        eventPublisher.publishEvent(SneakerChangedEvent.created(SneakerDocument.of(saved)));
+        return saved;
+    }
+
+    /**
+     * Validates a new listing and maps it onto an unsaved Sneaker. Shared with
+     * the bulk importer so both paths apply exactly the same rules; it does not
+     * touch the database, so it never opens a transaction of its own.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Sneaker buildListing(SneakerRequest request, User seller) {
         // Validate request
         if (request == null) {
             throw new IllegalArgumentException("Sneaker request cannot be null");
@@ -43,10 +144,6 @@ public class SneakerService {
         if (request.getImageUrls() == null || request.getImageUrls().isEmpty()) {
             throw new IllegalArgumentException("At least one image is required");
         }
-        
-        String username = SecurityContextHolder.getContext().getAuthentication().getName();
-        User seller = userRepository.findByUsername(username)
-                .orElseThrow(() -> new RuntimeException("User not found"));
 
         Sneaker sneaker = new Sneaker();
         sneaker.setName(request.getName().trim());
@@ -57,11 +154,10 @@ public class SneakerService {
         sneaker.setColor(request.getColor() != null ? request.getColor().trim() : "");
         sneaker.setCondition(request.getCondition() != null ? request.getCondition().trim() : "NEW");
         sneaker.setStock(request.getStock());
-        sneaker.setImageUrls(request.getImageUrls());
+        sneaker.setImageUrls(imageStorageService.normalizeReferences(request.getImageUrls()));
         sneaker.setSeller(seller);
         sneaker.setStatus(Sneaker.SneakerStatus.AVAILABLE);
-
-        return sneakerRepository.save(sneaker);
+        return sneaker;
     }
 
     public List<Sneaker> getAllSneakers() {
@@ -72,11 +168,61 @@ public class SneakerService {
         return sneakerRepository.findAllWithSeller();
     }
 
+    /**
+     * Unpaged catalog list with card-sized images and review aggregates.
+     */
+    @Transactional(readOnly = true)
+    public List<SneakerResponse> getAvailableListing() {
+        return toListing(sneakerRepository.findAllWithSellerAndRating());
+    }
+
+    @Transactional(readOnly = true)
+    public CursorPage<SneakerCard> getAvailableSneakersPage(String cursor, Integer limit) {
+        int pageSize = resolvePageSize(limit);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        PageRequest window = PageRequest.of(0, pageSize + 1);
+        List<SneakerCard> rows = after == null
+                ? sneakerRepository.findFirstCardPage(window)
+                : sneakerRepository.findCardPageAfter(after.timestamp(), after.id(), window);
+
+        if (rows.size() <= pageSize) {
+            return new CursorPage<>(rows, null);
+        }
+        List<SneakerCard> page = rows.subList(0, pageSize);
+        SneakerCard last = page.get(pageSize - 1);
+        return new CursorPage<>(page, new KeysetCursor(last.getCreatedAt(), last.getId()).encode());
+    }
+
+    /** The page size a list request is served with; CatalogCacheService keys its entries by it. */
+    public int resolvePageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    public int resolveSimilarLimit(Integer limit) {
+        return limit == null || limit < 1 ? maxSimilarResults : Math.min(limit, maxSimilarResults);
+    }
+
     public Sneaker getSneakerById(Long id) {
         return sneakerRepository.findByIdWithSeller(id)
                 .orElseThrow(() -> new RuntimeException("Sneaker not found"));
     }
 
+    @Transactional(readOnly = true)
+    public SneakerResponse getSneakerDetail(Long id) {
+        List<Object[]> rows = sneakerRepository.findByIdWithSellerAndRating(id);
+        if (rows.isEmpty()) {
+            throw new RuntimeException("Sneaker not found");
+        }
+        return new SneakerResponse((Sneaker) rows.get(0)[0], (SneakerRating) rows.get(0)[1]);
+    }
+
     public List<Sneaker> getMySneakers() {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
         User seller = userRepository.findByUsername(username)
@@ -84,6 +230,23 @@ public class SneakerService {
         return sneakerRepository.findBySellerWithSeller(seller);
     }
 
+    @Transactional(readOnly = true)
+    public List<SneakerResponse> getMySneakerListing() {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        User seller = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        // Originals, not thumbnails: the edit form sends these URLs back and only image references are accepted
+        return sneakerRepository.findBySellerWithSellerAndRating(seller).stream()
+                .map(row -> new SneakerResponse((Sneaker) row[0], (SneakerRating) row[1]))
+                .toList();
+    }
+
+    private List<SneakerResponse> toListing(List<Object[]> rows) {
+        return rows.stream()
+                .map(row -> SneakerResponse.forListing((Sneaker) row[0], (SneakerRating) row[1]))
+                .toList();
+    }
+
     public Sneaker updateSneaker(Long id, SneakerRequest request) {
         if (id == null) {
             throw new IllegalArgumentException("Sneaker ID cannot be null");
@@ -137,10 +300,118 @@ public class SneakerService {
             }
         }
         if (request.getImageUrls() != null && !request.getImageUrls().isEmpty()) {
-            sneaker.setImageUrls(request.getImageUrls());
+            sneaker.setImageUrls(imageStorageService.normalizeReferences(request.getImageUrls()));
         }
 
-        return sneakerRepository.save(sneaker);
+        Sneaker saved = sneakerRepository.save(sneaker);
+        eventPublisher.publishEvent(SneakerChangedEvent.updated(SneakerDocument.of(saved)));
+        return saved;
+    }
+
+    /**
+     * Applies price and stock changes to many of the caller's listings using one
+     * ownership query and one JDBC batch of UPDATEs, without loading entities.
+     * Each item gets its own outcome; invalid or foreign items do not stop the rest.
+     */
+    public BulkSneakerUpdateResponse bulkUpdate(BulkSneakerUpdateRequest request) {
+        if (request == null || request.getItems() == null || request.getItems().isEmpty()) {
+            throw new IllegalArgumentException("At least one item is required");
+        }
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        User seller = userRepository.findByUsername(username)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        List<BulkSneakerUpdateRequest.Item> items = request.getItems();
+        BulkSneakerUpdateResponse.ItemResult[] results = new BulkSneakerUpdateResponse.ItemResult[items.size()];
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            String error = validateBulkItem(items.get(i), seen);
+            if (error != null) {
+                Long id = items.get(i) != null ? items.get(i).getId() : null;
+                results[i] = new BulkSneakerUpdateResponse.ItemResult(id, BulkSneakerUpdateResponse.Outcome.INVALID, error);
+            }
+        }
+
+        Map<Long, Long> sellerIds = new HashMap<>();
+        if (!seen.isEmpty()) {
+            for (Object[] row : sneakerRepository.findSellerIdsByIds(seen)) {
+                sellerIds.put((Long) row[0], (Long) row[1]);
+            }
+        }
+
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            Long id = items.get(i).getId();
+            Long ownerId = sellerIds.get(id);
+            if (ownerId == null) {
+                results[i] = new BulkSneakerUpdateResponse.ItemResult(id, BulkSneakerUpdateResponse.Outcome.NOT_FOUND, "Sneaker not found");
+            } else if (!ownerId.equals(seller.getId())) {
+                results[i] = new BulkSneakerUpdateResponse.ItemResult(id, BulkSneakerUpdateResponse.Outcome.FORBIDDEN, "You can only update your own sneakers");
+            } else {
+                pending.add(i);
+            }
+        }
+
+        List<Long> updatedIds = new ArrayList<>();
+        if (!pending.isEmpty()) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> batch = new ArrayList<>(pending.size());
+            for (int i : pending) {
+                BulkSneakerUpdateRequest.Item item = items.get(i);
+                batch.add(new Object[] {
+                        item.getStock(), item.getStock(), item.getPrice(), item.getStock(), now, item.getId(), seller.getId()
+                });
+            }
+            int[] counts = jdbcTemplate.batchUpdate(BULK_UPDATE_SQL, batch, BULK_UPDATE_TYPES);
+            for (int k = 0; k < pending.size(); k++) {
+                int i = pending.get(k);
+                Long id = items.get(i).getId();
+                // The row can still vanish between the ownership check and the update
+                if (counts[k] == 0) {
+                    results[i] = new BulkSneakerUpdateResponse.ItemResult(id, BulkSneakerUpdateResponse.Outcome.NOT_FOUND, "Sneaker not found");
+                } else {
+                    results[i] = new BulkSneakerUpdateResponse.ItemResult(id, BulkSneakerUpdateResponse.Outcome.UPDATED, null);
+                    updatedIds.add(id);
+                }
+            }
+        }
+
+        if (!updatedIds.isEmpty()) {
+            for (SneakerDocument document : sneakerRepository.findDocumentsByIds(updatedIds)) {
+                eventPublisher.publishEvent(SneakerChangedEvent.updated(document));
+            }
+        }
+
+        BulkSneakerUpdateResponse response = new BulkSneakerUpdateResponse();
+        for (BulkSneakerUpdateResponse.ItemResult result : results) {
+            response.add(result);
+        }
+        return response;
+    }
+
+    private static String validateBulkItem(BulkSneakerUpdateRequest.Item item, Set<Long> seen) {
+        if (item == null || item.getId() == null) {
+            return "Sneaker ID is required";
+        }
+        if (item.getPrice() == null && item.getStock() == null) {
+            return "Price or stock is required";
+        }
+        if (item.getPrice() != null && item.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Price must be greater than 0";
+        }
+        if (item.getStock() != null && item.getStock() < 0) {
+            return "Stock cannot be negative";
+        }
+        if (item.getStock() != null && item.getStock() > 10000) {
+            return "Stock cannot exceed 10,000";
+        }
+        if (!seen.add(item.getId())) {
+            return "Duplicate sneaker ID";
+        }
+        return null;
     }
 
     public void deleteSneaker(Long id) {
@@ -156,19 +427,134 @@ public class SneakerService {
         }
 
         sneakerRepository.delete(sneaker);
+        // Incremental exports report the deletion from this row
+        sneakerTombstoneRepository.save(new SneakerTombstone(id, LocalDateTime.now()));
+        sneakerRatingRepository.deleteById(id);
+        sneakerEngagementRepository.deleteBySneakerId(id);
+        eventPublisher.publishEvent(SneakerChangedEvent.deleted(id));
+    }
+
+    @Transactional(readOnly = true)
+    public List<SneakerCard> search(String query) {
+        if (query == null || query.trim().isEmpty()) {
+            return sneakerRepository.findAllCards();
+        }
+        if (!searchIndex.isReady()) {
+            return sneakerRepository.findCardsByNameContaining(query.trim());
+        }
+        return loadCardsInOrder(indexSearch(query, EnumSet.allOf(SneakerSearchIndex.Field.class), false));
     }
 
-    public List<Sneaker> searchByBrand(String brand) {
+    /**
+     * Full-text search that always includes typo-tolerant matches on name and brand.
+     */
+    @Transactional(readOnly = true)
+    public List<SneakerCard> searchFuzzy(String query) {
+        if (query == null || query.trim().isEmpty()) {
+            return sneakerRepository.findAllCards();
+        }
+        if (!searchIndex.isReady()) {
+            return sneakerRepository.findCardsByNameContaining(query.trim());
+        }
+        return loadCardsInOrder(indexSearch(query, EnumSet.allOf(SneakerSearchIndex.Field.class), true));
+    }
+
+    @Transactional(readOnly = true)
+    public List<SneakerCard> searchByBrand(String brand) {
         if (brand == null || brand.trim().isEmpty()) {
-            return getAllSneakers();
+            return sneakerRepository.findAllCards();
+        }
+        if (!searchIndex.isReady()) {
+            return sneakerRepository.findCardsByBrandContaining(brand.trim());
         }
-        return sneakerRepository.findByBrandContainingIgnoreCase(brand.trim());
+        return loadCardsInOrder(indexSearch(brand, EnumSet.of(SneakerSearchIndex.Field.BRAND), false));
     }
 
-    public List<Sneaker> searchByName(String name) {
+    @Transactional(readOnly = true)
+    public List<SneakerCard> searchByName(String name) {
         if (name == null || name.trim().isEmpty()) {
-            return getAllSneakers();
+            return sneakerRepository.findAllCards();
+        }
+        if (!searchIndex.isReady()) {
+            return sneakerRepository.findCardsByNameContaining(name.trim());
+        }
+        return loadCardsInOrder(indexSearch(name, EnumSet.of(SneakerSearchIndex.Field.NAME), false));
+    }
+
+    // A query with no exact or substring hit is most likely a typo, so retry it fuzzily
+    private List<Long> indexSearch(String query, EnumSet<SneakerSearchIndex.Field> fields, boolean fuzzy) {
+        List<Long> ids = searchIndex.search(query, fields, maxSearchResults, fuzzy);
+        if (ids.isEmpty() && !fuzzy) {
+            ids = searchIndex.search(query, fields, maxSearchResults, true);
+        }
+        return ids;
+    }
+
+    /**
+     * Listings most like the given one, ranked from memory. A sold-out listing
+     * is not indexed, so its features are read from the database first.
+     */
+    @Transactional(readOnly = true)
+    public List<SneakerCard> getSimilar(Long id, Integer limit) {
+        if (!similarIndex.isReady()) {
+            throw new IndexNotReadyException("Recommendations are still loading, please try again shortly");
+        }
+        int size = resolveSimilarLimit(limit);
+        if (similarIndex.contains(id)) {
+            return loadCardsInOrder(similarIndex.similarTo(id, size));
+        }
+        List<SneakerDocument> documents = sneakerRepository.findDocumentsByIds(List.of(id));
+        if (documents.isEmpty()) {
+            throw new RuntimeException("Sneaker not found");
+        }
+        return loadCardsInOrder(similarIndex.similarTo(documents.get(0), size));
+    }
+
+    /**
+     * Hottest in-stock listings from the trending snapshot. Sold-out entries
+     * are skipped, which is why the whole snapshot is looked up.
+     */
+    @Transactional(readOnly = true)
+    public List<SneakerCard> getTrending(Integer limit) {
+        int size = resolvePageSize(limit);
+        return loadCardsInOrder(trendingService.top(Integer.MAX_VALUE)).stream()
+                .limit(size)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public FacetFilterResponse filter(Map<SneakerFacetIndex.Facet, List<String>> selections, boolean matchAll,
+                                      String cursor, Integer limit) {
+        if (!facetIndex.isReady()) {
+            throw new IndexNotReadyException("Filters are still loading, please try again shortly");
+        }
+        Long beforeId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                beforeId = Long.parseLong(cursor.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+        }
+        SneakerFacetIndex.Result result = facetIndex.filter(selections, matchAll, beforeId, resolvePageSize(limit));
+        return new FacetFilterResponse(loadCardsInOrder(result.ids()), result.total(),
+                result.lastId() != null ? result.lastId().toString() : null, result.facets());
+    }
+
+    /**
+     * Fetches cards for ranked ids by primary key and restores the ranking order.
+     */
+    private List<SneakerCard> loadCardsInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, SneakerCard> byId = new HashMap<>();
+        for (SneakerCard card : sneakerRepository.findCardsByIds(ids)) {
+            byId.put(card.getId(), card);
         }
-        return sneakerRepository.findByNameContainingIgnoreCase(name.trim());
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 }
@@ -0,0 +1,416 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.SneakerDocument;
+import com.example.demo.event.SneakerChangedEvent;
+import com.example.demo.repository.SneakerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Content-based "similar listings" over in-stock sneakers. Each listing is a
+ * sparse, L2-normalized feature vector (brand, name tokens, size, color,
+ * condition and a log-scale price band). Random-hyperplane LSH tables narrow
+ * a lookup to listings that hash alike, which are then ranked by exact cosine
+ * similarity. Small catalogs are simply scanned in full.
+ */
+@Service
+public class SneakerSimilarIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SneakerSimilarIndex.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+    private static final int TABLES = 16;
+    private static final int BITS = 8;
+    private static final long SEED = 0x5DEECE66DL;
+    // Below this many listings an exact scan is cheaper than probing the tables
+    private static final int EXACT_SCAN_LIMIT = 1000;
+    // Candidates wanted per requested result before neighbouring buckets are probed too
+    private static final int CANDIDATES_PER_RESULT = 4;
+
+    private static final float BRAND_WEIGHT = 3.0f;
+    private static final float NAME_WEIGHT = 2.5f;
+    private static final float PRICE_WEIGHT = 1.5f;
+    private static final float SIZE_WEIGHT = 1.0f;
+    private static final float COLOR_WEIGHT = 1.0f;
+    private static final float CONDITION_WEIGHT = 0.75f;
+    // Each band is 35% wider than the last; adjacent bands share a weaker feature
+    private static final double PRICE_BAND_RATIO = Math.log(1.35);
+    private static final Pattern TOKEN_SPLIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    @Autowired
+    private SneakerRepository sneakerRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Tables tables = new Tables();
+    private volatile boolean ready = false;
+
+    // Changes that arrive while a rebuild is scanning the table are replayed after the swap
+    private volatile boolean rebuilding = false;
+    private final ConcurrentLinkedQueue<SneakerChangedEvent> pendingDuringRebuild = new ConcurrentLinkedQueue<>();
+
+    private volatile long lastRebuildMillis;
+    private volatile LocalDateTime lastRebuildAt;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("Similar listings index could not be loaded, recommendations are disabled until it is rebuilt", e);
+        }
+    }
+
+    public synchronized Map<String, Object> rebuild() {
+        long started = System.currentTimeMillis();
+        rebuilding = true;
+        try {
+            Tables fresh = new Tables();
+            long lastId = 0;
+            while (true) {
+                List<SneakerDocument> batch = sneakerRepository.findDocumentsAfter(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (SneakerDocument document : batch) {
+                    fresh.add(document.getId(), vectorOf(document));
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+
+            lock.writeLock().lock();
+            try {
+                tables = fresh;
+                rebuilding = false;
+                SneakerChangedEvent event;
+                while ((event = pendingDuringRebuild.poll()) != null) {
+                    apply(event);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+        } finally {
+            rebuilding = false;
+        }
+        lastRebuildMillis = System.currentTimeMillis() - started;
+        lastRebuildAt = LocalDateTime.now();
+        logger.info("Similar listings index rebuilt with {} listings in {} ms", tables.vectors.size(), lastRebuildMillis);
+        return getStats();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSneakerChanged(SneakerChangedEvent event) {
+        if (event.getType() == SneakerChangedEvent.Type.RATING_CHANGED) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                pendingDuringRebuild.add(event);
+            }
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean contains(Long id) {
+        lock.readLock().lock();
+        try {
+            return tables.vectors.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the in-stock listings most similar to an indexed listing, best
+     * first. Returns an empty list when the listing is not indexed.
+     */
+    public List<Long> similarTo(Long id, int limit) {
+        lock.readLock().lock();
+        try {
+            Vector vector = tables.vectors.get(id);
+            return vector == null ? List.of() : tables.nearest(id, vector, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Same as {@link #similarTo(Long, int)} for a listing that is not indexed,
+     * such as one that has sold out.
+     */
+    public List<Long> similarTo(SneakerDocument document, int limit) {
+        Vector vector = vectorOf(document);
+        lock.readLock().lock();
+        try {
+            return tables.nearest(document.getId(), vector, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            long buckets = 0;
+            for (Map<Integer, Set<Long>> table : tables.buckets) {
+                buckets += table.size();
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("ready", ready);
+            stats.put("listings", tables.vectors.size());
+            stats.put("tables", TABLES);
+            stats.put("bitsPerTable", BITS);
+            stats.put("buckets", buckets);
+            stats.put("lastRebuildMillis", lastRebuildMillis);
+            stats.put("lastRebuildAt", lastRebuildAt);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(SneakerChangedEvent event) {
+        tables.remove(event.getSneakerId());
+        if (!event.isDeleted() && event.getDocument().isInStock()) {
+            tables.add(event.getSneakerId(), vectorOf(event.getDocument()));
+        }
+    }
+
+    static Vector vectorOf(SneakerDocument document) {
+        TreeMap<Integer, Float> features = new TreeMap<>();
+        String brand = normalize(document.getBrand());
+        if (!brand.isEmpty()) {
+            put(features, "brand:" + brand, BRAND_WEIGHT);
+        }
+        addTokens(features, "name:", document.getName(), NAME_WEIGHT);
+        addTokens(features, "color:", document.getColor(), COLOR_WEIGHT);
+        String size = normalize(document.getSize());
+        if (!size.isEmpty()) {
+            put(features, "size:" + size, SIZE_WEIGHT);
+        }
+        String condition = normalize(document.getCondition());
+        if (!condition.isEmpty()) {
+            put(features, "condition:" + condition, CONDITION_WEIGHT);
+        }
+        BigDecimal price = document.getPrice();
+        if (price != null && price.signum() > 0) {
+            long band = (long) Math.floor(Math.log(price.doubleValue()) / PRICE_BAND_RATIO);
+            put(features, "price:" + band, PRICE_WEIGHT);
+            put(features, "price:" + (band - 1), PRICE_WEIGHT / 3);
+            put(features, "price:" + (band + 1), PRICE_WEIGHT / 3);
+        }
+
+        int[] ids = new int[features.size()];
+        float[] weights = new float[features.size()];
+        double norm = 0;
+        int i = 0;
+        for (Map.Entry<Integer, Float> feature : features.entrySet()) {
+            ids[i] = feature.getKey();
+            weights[i] = feature.getValue();
+            norm += weights[i] * weights[i];
+            i++;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int j = 0; j < weights.length; j++) {
+                weights[j] *= scale;
+            }
+        }
+        return new Vector(ids, weights);
+    }
+
+    // Multi-word fields share their weight so a long name does not outweigh the brand
+    private static void addTokens(Map<Integer, Float> features, String prefix, String text, float weight) {
+        Set<String> tokens = new HashSet<>();
+        for (String token : TOKEN_SPLIT.split(normalize(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        float each = tokens.isEmpty() ? 0 : (float) (weight / Math.sqrt(tokens.size()));
+        for (String token : tokens) {
+            put(features, prefix + token, each);
+        }
+    }
+
+    private static void put(Map<Integer, Float> features, String feature, float weight) {
+        features.merge((int) mix(feature.hashCode()), weight, Float::sum);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Sparse unit vector with feature ids in ascending order.
+     */
+    record Vector(int[] ids, float[] weights) {
+        float dot(Vector other) {
+            float sum = 0;
+            int i = 0;
+            int j = 0;
+            while (i < ids.length && j < other.ids.length) {
+                if (ids[i] == other.ids[j]) {
+                    sum += weights[i++] * other.weights[j++];
+                } else if (ids[i] < other.ids[j]) {
+                    i++;
+                } else {
+                    j++;
+                }
+            }
+            return sum;
+        }
+
+        /**
+         * One signature per table: bit b is the sign of the projection onto a
+         * pseudo-random +-1 hyperplane derived from (feature, table, bit), so no
+         * hyperplanes have to be stored.
+         */
+        int[] signatures() {
+            int[] signatures = new int[TABLES];
+            for (int table = 0; table < TABLES; table++) {
+                int signature = 0;
+                for (int bit = 0; bit < BITS; bit++) {
+                    float projection = 0;
+                    long plane = SEED + (long) table * BITS + bit;
+                    for (int f = 0; f < ids.length; f++) {
+                        projection += (mix(plane * 31 + ids[f]) & 1) == 0 ? weights[f] : -weights[f];
+                    }
+                    if (projection >= 0) {
+                        signature |= 1 << bit;
+                    }
+                }
+                signatures[table] = signature;
+            }
+            return signatures;
+        }
+    }
+
+    private static final class Tables {
+        final Map<Long, Vector> vectors = new HashMap<>();
+        final Map<Long, int[]> signatures = new HashMap<>();
+        final List<Map<Integer, Set<Long>>> buckets = new ArrayList<>(TABLES);
+
+        Tables() {
+            for (int table = 0; table < TABLES; table++) {
+                buckets.add(new HashMap<>());
+            }
+        }
+
+        void add(Long id, Vector vector) {
+            int[] signature = vector.signatures();
+            vectors.put(id, vector);
+            signatures.put(id, signature);
+            for (int table = 0; table < TABLES; table++) {
+                buckets.get(table).computeIfAbsent(signature[table], s -> new HashSet<>()).add(id);
+            }
+        }
+
+        void remove(Long id) {
+            vectors.remove(id);
+            int[] signature = signatures.remove(id);
+            if (signature == null) {
+                return;
+            }
+            for (int table = 0; table < TABLES; table++) {
+                Set<Long> bucket = buckets.get(table).get(signature[table]);
+                if (bucket != null && bucket.remove(id) && bucket.isEmpty()) {
+                    buckets.get(table).remove(signature[table]);
+                }
+            }
+        }
+
+        List<Long> nearest(Long self, Vector vector, int limit) {
+            if (limit < 1 || vectors.isEmpty()) {
+                return List.of();
+            }
+            Set<Long> candidates;
+            if (vectors.size() <= EXACT_SCAN_LIMIT) {
+                candidates = vectors.keySet();
+            } else {
+                candidates = new HashSet<>();
+                int[] signature = signatures.containsKey(self) ? signatures.get(self) : vector.signatures();
+                for (int table = 0; table < TABLES; table++) {
+                    collect(candidates, table, signature[table]);
+                }
+                // Too few exact bucket hits: also probe every bucket one bit away
+                if (candidates.size() < limit * CANDIDATES_PER_RESULT) {
+                    for (int table = 0; table < TABLES; table++) {
+                        for (int bit = 0; bit < BITS; bit++) {
+                            collect(candidates, table, signature[table] ^ (1 << bit));
+                        }
+                    }
+                }
+            }
+
+            List<Long> ids = new ArrayList<>(candidates.size());
+            List<Float> scores = new ArrayList<>(candidates.size());
+            for (Long candidate : candidates) {
+                if (candidate.equals(self)) {
+                    continue;
+                }
+                float score = vector.dot(vectors.get(candidate));
+                if (score > 0) {
+                    ids.add(candidate);
+                    scores.add(score);
+                }
+            }
+            Integer[] order = new Integer[ids.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            // Highest similarity first, newest listing on ties
+            Arrays.sort(order, (a, b) -> {
+                int byScore = Float.compare(scores.get(b), scores.get(a));
+                return byScore != 0 ? byScore : Long.compare(ids.get(b), ids.get(a));
+            });
+            List<Long> result = new ArrayList<>(Math.min(limit, order.length));
+            for (int i = 0; i < order.length && i < limit; i++) {
+                result.add(ids.get(order[i]));
+            }
+            return result;
+        }
+
+        private void collect(Set<Long> candidates, int table, int signature) {
+            Set<Long> bucket = buckets.get(table).get(signature);
+            if (bucket != null) {
+                candidates.addAll(bucket);
+            }
+        }
+    }
+}
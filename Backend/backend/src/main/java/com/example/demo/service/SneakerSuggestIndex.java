@@ -0,0 +1,391 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.SneakerDocument;
+import com.example.demo.dto.Suggestion;
+import com.example.demo.event.SneakerChangedEvent;
+import com.example.demo.repository.SneakerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Typeahead over the names and brands of in-stock listings. Terms live in a
+ * character trie keyed by the whole term and by every word inside it, and
+ * each node caches the top suggestions of its subtree, so a lookup is one
+ * walk down the prefix. A term's weight is the number of in-stock listings
+ * that carry it; updates re-rank only the nodes on that term's paths.
+ */
+@Service
+public class SneakerSuggestIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SneakerSuggestIndex.class);
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+    // Deep keys add nodes without making suggestions any better
+    private static final int MAX_KEY_LENGTH = 48;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Comparator<Term> RANKING = Comparator.comparingLong((Term term) -> term.weight).reversed()
+            .thenComparing(term -> term.key)
+            .thenComparing(term -> term.type);
+
+    @Autowired
+    private SneakerRepository sneakerRepository;
+
+    @Value("${suggest.max-results:10}")
+    private int maxResults;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Trie trie = new Trie(10);
+    private volatile boolean ready = false;
+
+    // Changes that arrive while a rebuild is scanning the table are replayed after the swap
+    private volatile boolean rebuilding = false;
+    private final ConcurrentLinkedQueue<SneakerChangedEvent> pendingDuringRebuild = new ConcurrentLinkedQueue<>();
+
+    private volatile long lastRebuildMillis;
+    private volatile LocalDateTime lastRebuildAt;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            logger.error("Suggest index could not be loaded, suggestions are disabled until it is rebuilt", e);
+        }
+    }
+
+    public synchronized Map<String, Object> rebuild() {
+        long started = System.currentTimeMillis();
+        rebuilding = true;
+        try {
+            Trie fresh = new Trie(maxResults);
+            long lastId = 0;
+            while (true) {
+                List<SneakerDocument> batch = sneakerRepository.findDocumentsAfter(lastId, PageRequest.of(0, LOAD_BATCH_SIZE));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                for (SneakerDocument document : batch) {
+                    fresh.addListing(document);
+                }
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+            fresh.rankAll();
+
+            lock.writeLock().lock();
+            try {
+                trie = fresh;
+                rebuilding = false;
+                SneakerChangedEvent event;
+                while ((event = pendingDuringRebuild.poll()) != null) {
+                    apply(event);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ready = true;
+        } finally {
+            rebuilding = false;
+        }
+        lastRebuildMillis = System.currentTimeMillis() - started;
+        lastRebuildAt = LocalDateTime.now();
+        logger.info("Suggest index rebuilt with {} terms in {} ms", trie.terms.size(), lastRebuildMillis);
+        return getStats();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSneakerChanged(SneakerChangedEvent event) {
+        if (event.getType() == SneakerChangedEvent.Type.RATING_CHANGED) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (rebuilding) {
+                pendingDuringRebuild.add(event);
+            }
+            apply(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Most popular names and brands that start with the prefix, or contain a
+     * word that does. Returns an empty list until the index has loaded.
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit < 1) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Node node = trie.root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.child(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            Term[] top = node.top;
+            List<Suggestion> result = new ArrayList<>(Math.min(limit, top.length));
+            for (int i = 0; i < top.length && i < limit; i++) {
+                result.add(new Suggestion(top[i].display, top[i].type.name(), top[i].weight));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("ready", ready);
+            stats.put("listings", trie.listings.size());
+            stats.put("terms", trie.terms.size());
+            stats.put("nodes", trie.nodeCount);
+            stats.put("lastRebuildMillis", lastRebuildMillis);
+            stats.put("lastRebuildAt", lastRebuildAt);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(SneakerChangedEvent event) {
+        trie.removeListing(event.getSneakerId());
+        if (!event.isDeleted() && event.getDocument().isInStock()) {
+            trie.addListing(event.getDocument());
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String key = WHITESPACE.matcher(text.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+    }
+
+    private enum Type { NAME, BRAND }
+
+    private static final class Term {
+        final Type type;
+        final String key;
+        final String display;
+        long weight;
+
+        Term(Type type, String key, String display) {
+            this.type = type;
+            this.key = key;
+            this.display = display;
+        }
+    }
+
+    private static final class Node {
+        private static final Term[] NO_TERMS = new Term[0];
+
+        char[] labels = new char[0];
+        Node[] children = new Node[0];
+        // Terms whose key (whole or from an inner word) ends exactly here
+        List<Term> terminals = List.of();
+        Term[] top = NO_TERMS;
+
+        Node child(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            return i >= 0 ? children[i] : null;
+        }
+
+        Node childOrCreate(char c, Trie trie) {
+            int i = Arrays.binarySearch(labels, c);
+            if (i >= 0) {
+                return children[i];
+            }
+            int at = -i - 1;
+            char[] newLabels = new char[labels.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(labels, 0, newLabels, 0, at);
+            System.arraycopy(children, 0, newChildren, 0, at);
+            System.arraycopy(labels, at, newLabels, at + 1, labels.length - at);
+            System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+            Node node = new Node();
+            newLabels[at] = c;
+            newChildren[at] = node;
+            labels = newLabels;
+            children = newChildren;
+            trie.nodeCount++;
+            return node;
+        }
+
+        void removeChild(char c) {
+            int i = Arrays.binarySearch(labels, c);
+            if (i < 0) {
+                return;
+            }
+            char[] newLabels = new char[labels.length - 1];
+            Node[] newChildren = new Node[children.length - 1];
+            System.arraycopy(labels, 0, newLabels, 0, i);
+            System.arraycopy(children, 0, newChildren, 0, i);
+            System.arraycopy(labels, i + 1, newLabels, i, labels.length - i - 1);
+            System.arraycopy(children, i + 1, newChildren, i, children.length - i - 1);
+            labels = newLabels;
+            children = newChildren;
+        }
+
+        void rank(int k) {
+            List<Term> candidates = new ArrayList<>(terminals);
+            for (Node child : children) {
+                for (Term term : child.top) {
+                    if (!candidates.contains(term)) {
+                        candidates.add(term);
+                    }
+                }
+            }
+            candidates.sort(RANKING);
+            top = candidates.size() > k ? candidates.subList(0, k).toArray(NO_TERMS) : candidates.toArray(NO_TERMS);
+        }
+    }
+
+    private static final class Trie {
+        final int k;
+        final Node root = new Node();
+        final Map<String, Term> terms = new HashMap<>();
+        // The terms each listing contributed, so an update can take them back
+        final Map<Long, Term[]> listings = new HashMap<>();
+        int nodeCount = 1;
+        // While bulk loading, ranking is deferred to a single bottom-up pass
+        boolean loading = true;
+
+        Trie(int k) {
+            this.k = k;
+        }
+
+        void addListing(SneakerDocument document) {
+            Term name = term(Type.NAME, document.getName());
+            Term brand = term(Type.BRAND, document.getBrand());
+            Term[] contributed = name == null && brand == null ? new Term[0]
+                    : name == null ? new Term[] {brand}
+                    : brand == null ? new Term[] {name}
+                    : new Term[] {name, brand};
+            listings.put(document.getId(), contributed);
+            for (Term term : contributed) {
+                adjust(term, 1);
+            }
+        }
+
+        void removeListing(Long id) {
+            Term[] contributed = listings.remove(id);
+            if (contributed != null) {
+                for (Term term : contributed) {
+                    adjust(term, -1);
+                }
+            }
+        }
+
+        private Term term(Type type, String text) {
+            String key = normalize(text);
+            if (key.isEmpty()) {
+                return null;
+            }
+            return terms.computeIfAbsent(type + ":" + key, id -> {
+                Term created = new Term(type, key, text.trim());
+                insert(created);
+                return created;
+            });
+        }
+
+        private void insert(Term term) {
+            for (int start : wordStarts(term.key)) {
+                Node node = root;
+                for (int i = start; i < term.key.length(); i++) {
+                    node = node.childOrCreate(term.key.charAt(i), this);
+                }
+                List<Term> terminals = new ArrayList<>(node.terminals);
+                terminals.add(term);
+                node.terminals = terminals;
+            }
+        }
+
+        private void adjust(Term term, int delta) {
+            term.weight += delta;
+            boolean gone = term.weight <= 0;
+            if (gone) {
+                term.weight = 0;
+                terms.remove(term.type + ":" + term.key);
+            }
+            if (loading && !gone) {
+                return;
+            }
+            // Re-rank every node on every path to this term, deepest first, dropping nodes left empty
+            for (int start : wordStarts(term.key)) {
+                Node[] path = new Node[term.key.length() - start + 1];
+                path[0] = root;
+                for (int i = start; i < term.key.length(); i++) {
+                    path[i - start + 1] = path[i - start].child(term.key.charAt(i));
+                }
+                Node end = path[path.length - 1];
+                if (gone) {
+                    List<Term> terminals = new ArrayList<>(end.terminals);
+                    terminals.remove(term);
+                    end.terminals = terminals;
+                }
+                for (int i = path.length - 1; i >= 0; i--) {
+                    if (i > 0 && path[i].terminals.isEmpty() && path[i].children.length == 0) {
+                        path[i - 1].removeChild(term.key.charAt(start + i - 1));
+                        nodeCount--;
+                    } else if (!loading) {
+                        path[i].rank(k);
+                    }
+                }
+            }
+        }
+
+        void rankAll() {
+            rankSubtree(root);
+            loading = false;
+        }
+
+        private void rankSubtree(Node node) {
+            for (Node child : node.children) {
+                rankSubtree(child);
+            }
+            node.rank(k);
+        }
+
+        private static List<Integer> wordStarts(String key) {
+            List<Integer> starts = new ArrayList<>();
+            starts.add(0);
+            for (int i = 1; i < key.length(); i++) {
+                if (key.charAt(i - 1) == ' ') {
+                    starts.add(i);
+                }
+            }
+            return starts;
+        }
+    }
+}
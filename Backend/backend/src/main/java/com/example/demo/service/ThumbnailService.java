@@ -0,0 +1,260 @@
+package com.example.demo.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates fixed-size thumbnails the first time they are requested and keeps
+ * them next to the original in the image store. Rendering runs on a small
+ * bounded pool so a cold catalog cannot occupy every core; callers that do
+ * not get a slot fall back to the original image.
+ */
+@Service
+public class ThumbnailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThumbnailService.class);
+
+    public enum Variant {
+        SM(160), MD(400);
+
+        private final int maxDimension;
+
+        Variant(int maxDimension) {
+            this.maxDimension = maxDimension;
+        }
+
+        public int getMaxDimension() { return maxDimension; }
+
+        public String key() { return name().toLowerCase(Locale.ROOT); }
+
+        public static Variant fromKey(String key) {
+            for (Variant variant : values()) {
+                if (variant.key().equals(key)) {
+                    return variant;
+                }
+            }
+            return null;
+        }
+    }
+
+    /** Variant used for catalog cards. */
+    public static final Variant LISTING_VARIANT = Variant.MD;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    @Value("${thumbnails.workers:2}")
+    private int workers;
+
+    @Value("${thumbnails.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${thumbnails.wait-millis:5000}")
+    private long waitMillis;
+
+    // Decoding allocates width * height * 4 bytes, so larger images are never rendered
+    @Value("${thumbnails.max-pixels:40000000}")
+    private long maxPixels;
+
+    private ExecutorService executor;
+
+    // Concurrent requests for the same missing thumbnail share one render
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        ImageIO.setUseCache(false);
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Builds the URL for a thumbnail of a stored image; external references are returned unchanged.
+     */
+    public static String toThumbnailUrl(String reference, Variant variant) {
+        String url = ImageStorageService.toUrl(reference);
+        if (url != null && url.startsWith(ImageStorageService.URL_PREFIX)) {
+            return url + "/thumb/" + variant.key();
+        }
+        return url;
+    }
+
+    /**
+     * Returns the thumbnail file, rendering it if needed, or {@code null} when
+     * it cannot be produced in time (pool saturated, unreadable format, ...).
+     */
+    public Path getThumbnail(String id, Variant variant) {
+        Path target = thumbnailPath(id, variant);
+        if (Files.exists(target)) {
+            return target;
+        }
+        if (!Files.exists(imageStorageService.resolve(id)) || Files.exists(skipMarker(target))) {
+            return null;
+        }
+
+        String key = target.getFileName().toString();
+        CompletableFuture<Path> future = inFlight.computeIfAbsent(key, k -> submit(id, variant, target));
+        future.whenComplete((path, error) -> inFlight.remove(key, future));
+        try {
+            return future.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            logger.warn("Thumbnail generation failed for {}: {}", key, e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    public String contentType(Path thumbnail) {
+        return thumbnail.getFileName().toString().endsWith(".png") ? "image/png" : "image/jpeg";
+    }
+
+    private CompletableFuture<Path> submit(String id, Variant variant, Path target) {
+        CompletableFuture<Path> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(render(id, variant, target));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.complete(null);
+        }
+        return future;
+    }
+
+    private Path render(String id, Variant variant, Path target) throws IOException {
+        if (Files.exists(target)) {
+            return target;
+        }
+        BufferedImage source = decode(imageStorageService.resolve(id));
+        if (source == null) {
+            // Remember the original has to be served, so later requests do not queue the same render again
+            try {
+                Files.createFile(skipMarker(target));
+            } catch (FileAlreadyExistsException e) {
+                // Another request got here first
+            }
+            return null;
+        }
+
+        double scale = Math.min(1.0, (double) variant.getMaxDimension() / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        boolean alpha = source.getColorModel().hasAlpha();
+
+        BufferedImage scaled = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        Path tmp = Files.createTempFile(target.getParent(), "thumb", ".tmp");
+        try {
+            if (!ImageIO.write(scaled, formatOf(target), tmp.toFile())) {
+                throw new IOException("No writer for " + formatOf(target));
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Another request rendered the same thumbnail first
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return target;
+    }
+
+    /**
+     * Decodes the image, or returns {@code null} when there is no ImageIO
+     * reader for its format (e.g. WebP) or it is larger than thumbnails.max-pixels.
+     * The dimensions come from the header, before any pixels are allocated.
+     */
+    private BufferedImage decode(Path original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    logger.warn("Not rendering thumbnail for {}: {} pixels exceeds the limit of {}",
+                            original.getFileName(), pixels, maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static Path skipMarker(Path target) {
+        return target.resolveSibling(target.getFileName() + ".none");
+    }
+
+    private Path thumbnailPath(String id, Variant variant) {
+        Path original = imageStorageService.resolve(id);
+        String hash = id.substring(0, id.indexOf('.'));
+        // Keep transparency for formats that can carry it
+        String extension = id.endsWith(".png") || id.endsWith(".gif") ? "png" : "jpg";
+        return original.resolveSibling(hash + "_" + variant.key() + "." + extension);
+    }
+
+    private String formatOf(Path target) {
+        return target.getFileName().toString().endsWith(".png") ? "png" : "jpg";
+    }
+}
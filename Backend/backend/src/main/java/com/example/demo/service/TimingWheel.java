@@ -0,0 +1,133 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel: four levels of 64 slots, each level's slot
+ * spanning a whole turn of the level below. Adding or cancelling a timer is
+ * O(1) and a tick only touches the slot that is due, plus a cascade of one
+ * higher slot every 64 ticks. At one-second ticks the levels cover about
+ * 194 days; later deadlines wait in an overflow list until the top level
+ * turns over. Not thread safe; {@link DeadlineScheduler} guards it.
+ */
+class TimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    static final class Timer<T> {
+        final T value;
+        final long tick;
+        boolean cancelled;
+
+        private Timer(T value, long tick) {
+            this.value = value;
+            this.tick = tick;
+        }
+    }
+
+    private final long tickMillis;
+    private final List<List<Timer<T>>> slots = new ArrayList<>(LEVELS * SLOTS);
+    private List<Timer<T>> overflow = new ArrayList<>();
+    private long now;
+    private int size;
+
+    TimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.now = startMillis / tickMillis;
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Adds a timer for {@code deadlineMillis}, rounded up to the next tick.
+     * A deadline that has already passed goes straight to {@code due}.
+     */
+    Timer<T> add(T value, long deadlineMillis, List<T> due) {
+        Timer<T> timer = new Timer<>(value, Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis));
+        size++;
+        place(timer, due);
+        return timer;
+    }
+
+    void cancel(Timer<T> timer) {
+        if (!timer.cancelled) {
+            timer.cancelled = true;
+            size--;
+        }
+    }
+
+    /** Advances one tick at a time up to {@code nowMillis}, collecting timers that came due. */
+    void advanceTo(long nowMillis, List<T> due) {
+        long target = nowMillis / tickMillis;
+        while (now < target) {
+            now++;
+            // Cascade from the highest level that turned over, so its timers land in slots that are still ahead
+            int top = 0;
+            while (top < LEVELS - 1 && ((now >>> (SLOT_BITS * (top + 1))) << (SLOT_BITS * (top + 1))) == now) {
+                top++;
+            }
+            if (top == LEVELS - 1 && (now & ((1L << (SLOT_BITS * LEVELS)) - 1)) == 0) {
+                List<Timer<T>> waiting = overflow;
+                overflow = new ArrayList<>();
+                for (Timer<T> timer : waiting) {
+                    place(timer, due);
+                }
+            }
+            for (int level = top; level >= 1; level--) {
+                List<Timer<T>> slot = slot(level, now);
+                if (slot.isEmpty()) {
+                    continue;
+                }
+                List<Timer<T>> cascading = new ArrayList<>(slot);
+                slot.clear();
+                for (Timer<T> timer : cascading) {
+                    place(timer, due);
+                }
+            }
+            List<Timer<T>> slot = slot(0, now);
+            for (Timer<T> timer : slot) {
+                expire(timer, due);
+            }
+            slot.clear();
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void place(Timer<T> timer, List<T> due) {
+        if (timer.cancelled) {
+            return;
+        }
+        long delta = timer.tick - now;
+        if (delta <= 0) {
+            expire(timer, due);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < 1L << (SLOT_BITS * (level + 1))) {
+                slot(level, timer.tick).add(timer);
+                return;
+            }
+        }
+        overflow.add(timer);
+    }
+
+    private void expire(Timer<T> timer, List<T> due) {
+        if (!timer.cancelled) {
+            timer.cancelled = true;
+            size--;
+            due.add(timer.value);
+        }
+    }
+
+    private List<Timer<T>> slot(int level, long tick) {
+        return slots.get(level * SLOTS + (int) ((tick >>> (SLOT_BITS * level)) & MASK));
+    }
+}
@@ -26,6 +26,9 @@ public class TradeService {
     @Autowired
     private SneakerRepository sneakerRepository;
     
+    @Autowired
+    private OutboxService outboxService;
+    
     private User getCurrentUser() {
         String username = SecurityContextHolder.getContext().getAuthentication().getName();
         return userRepository.findByUsername(username)
@@ -104,7 +107,9 @@ public class TradeService {
         trade.setMessage(sanitizedMessage);
         trade.setStatus(Trade.TradeStatus.PENDING);
         
-        return tradeRepository.save(trade);
+        Trade saved = tradeRepository.save(trade);
+        outboxService.recordTrade(saved, "TRADE_CREATED");
+        return saved;
     }
     
     @Transactional(readOnly = true)
@@ -160,7 +165,9 @@ public class TradeService {
         }
         
         trade.setStatus(Trade.TradeStatus.ACCEPTED);
-        return tradeRepository.save(trade);
+        Trade saved = tradeRepository.save(trade);
+        outboxService.recordTrade(saved, "TRADE_ACCEPTED");
+        return saved;
     }
     
     @Transactional
@@ -186,6 +193,8 @@ public class TradeService {
         }
         
         trade.setStatus(Trade.TradeStatus.DECLINED);
-        return tradeRepository.save(trade);
+        Trade saved = tradeRepository.save(trade);
+        outboxService.recordTrade(saved, "TRADE_DECLINED");
+        return saved;
     }
 }
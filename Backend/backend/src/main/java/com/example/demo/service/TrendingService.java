@@ -0,0 +1,385 @@
+package com.example.demo.service;
+
+import com.example.demo.event.EngagementEvent;
+import com.example.demo.event.SneakerChangedEvent;
+import com.example.demo.model.SneakerEngagement;
+import com.example.demo.repository.SneakerEngagementRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * "Trending now" from recent views, favorites and orders. Each event bumps a
+ * striped LongAdder, so recording never contends on a hot listing. A
+ * scheduled flush moves the new counts into fixed time slots, adds them to
+ * the sneaker_engagement table, and recomputes an exponentially decayed
+ * score over the sliding window. The top K by score are kept as an immutable
+ * snapshot that requests read without aggregating anything. Flushes are
+ * serialized on their own lock, which no request or event listener takes,
+ * so a slow database never holds up recording, deletions or stats.
+ */
+@Service
+public class TrendingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendingService.class);
+
+    private static final EngagementEvent.Type[] TYPES = EngagementEvent.Type.values();
+    // An order says far more about demand than a page view
+    private static final double[] WEIGHTS = {1.0, 5.0, 10.0};
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO sneaker_engagement (sneaker_id, slot_start, view_count, favorite_count, order_count) " +
+            "VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE view_count = view_count + VALUES(view_count), " +
+            "favorite_count = favorite_count + VALUES(favorite_count), order_count = order_count + VALUES(order_count)";
+
+    private static final String PRUNE_SQL = "DELETE FROM sneaker_engagement WHERE slot_start < ?";
+
+    @Autowired
+    private SneakerEngagementRepository engagementRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${trending.slot-seconds:300}")
+    private long slotSeconds;
+
+    @Value("${trending.window-slots:288}")
+    private int windowSlots;
+
+    @Value("${trending.half-life-minutes:360}")
+    private double halfLifeMinutes;
+
+    @Value("${trending.top-k:50}")
+    private int topK;
+
+    // Live counts since startup; flush() works out what is new by comparing against what it already wrote
+    private final ConcurrentHashMap<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    // Windows are created, filled and ranked only under flushLock; deletions remove them from any thread
+    private final ConcurrentHashMap<Long, Window> windows = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    // Guarded by flushLock
+    private double[] decay;
+    private long lastPrunedSlot = -1;
+
+    private volatile List<Trend> top = List.of();
+    private volatile long lastFlushMillis;
+    private volatile LocalDateTime lastFlushAt;
+
+    private record Trend(Long sneakerId, double score) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        synchronized (flushLock) {
+            try {
+                long current = currentSlot();
+                for (SneakerEngagement row : engagementRepository.findBySlotStartGreaterThanEqualOrderBySlotStart(slotStart(current - windowSlots + 1))) {
+                    long[] counts = {row.getViewCount(), row.getFavoriteCount(), row.getOrderCount()};
+                    windows.computeIfAbsent(row.getSneakerId(), id -> new Window())
+                            .add(slotOf(row.getSlotStart()), points(counts));
+                }
+                rank(current);
+                logger.info("Trending loaded {} listings from the last {} slots", windows.size(), windowSlots);
+            } catch (RuntimeException e) {
+                logger.error("Trending counters could not be loaded, starting from an empty window", e);
+            }
+        }
+    }
+
+    public void record(Long sneakerId, EngagementEvent.Type type) {
+        if (sneakerId == null) {
+            return;
+        }
+        // A counter retired by flush() refuses the count; go round and pick up its replacement
+        while (!counters.computeIfAbsent(sneakerId, id -> new Counter()).record(type.ordinal())) {
+            Thread.onSpinWait();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEngagement(EngagementEvent event) {
+        record(event.getSneakerId(), event.getType());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSneakerChanged(SneakerChangedEvent event) {
+        if (!event.isDeleted()) {
+            return;
+        }
+        // Counter first: a flush that still holds it then sees it is gone before re-creating the window
+        counters.remove(event.getSneakerId());
+        windows.remove(event.getSneakerId());
+    }
+
+    /**
+     * Up to {@code limit} listing ids from the latest snapshot, hottest first.
+     */
+    public List<Long> top(int limit) {
+        return top.stream().limit(limit).map(Trend::sneakerId).toList();
+    }
+
+    @Scheduled(fixedDelayString = "${trending.flush-interval-ms:60000}", initialDelayString = "${trending.flush-interval-ms:60000}")
+    public void flushScheduled() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("Trending flush failed, counts are kept for the next attempt", e);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushScheduled();
+    }
+
+    /**
+     * Writes counts recorded since the last flush into the current slot, both
+     * in the table and in memory, then re-ranks. Nothing is marked as flushed
+     * unless the write succeeds, so a failed flush is simply retried.
+     */
+    public Map<String, Object> flush() {
+        synchronized (flushLock) {
+            return flushLocked();
+        }
+    }
+
+    private Map<String, Object> flushLocked() {
+        long started = System.currentTimeMillis();
+        long current = currentSlot();
+        Timestamp slotStart = Timestamp.valueOf(slotStart(current));
+
+        List<Long> ids = new ArrayList<>();
+        List<Counter> flushedCounters = new ArrayList<>();
+        List<long[]> deltas = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+            long[] delta = entry.getValue().pending();
+            if (delta != null) {
+                ids.add(entry.getKey());
+                flushedCounters.add(entry.getValue());
+                deltas.add(delta);
+                rows.add(new Object[] {entry.getKey(), slotStart, delta[0], delta[1], delta[2]});
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            Counter counter = flushedCounters.get(i);
+            double points = points(deltas.get(i));
+            counter.markFlushed(deltas.get(i));
+            // Skip listings deleted since the counts were read, atomically with the deletion's own removal
+            windows.compute(ids.get(i), (id, window) -> {
+                if (counters.get(id) != counter) {
+                    return window;
+                }
+                Window updated = window != null ? window : new Window();
+                updated.add(current, points);
+                return updated;
+            });
+        }
+        if (current != lastPrunedSlot) {
+            jdbcTemplate.update(PRUNE_SQL, Timestamp.valueOf(slotStart(current - windowSlots + 1)));
+            lastPrunedSlot = current;
+        }
+        rank(current);
+        int pruned = pruneIdleCounters();
+
+        lastFlushMillis = System.currentTimeMillis() - started;
+        lastFlushAt = LocalDateTime.now();
+        Map<String, Object> result = getStats();
+        result.put("flushedListings", rows.size());
+        result.put("prunedCounters", pruned);
+        return result;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("trackedListings", windows.size());
+        stats.put("liveCounters", counters.size());
+        stats.put("topSize", top.size());
+        stats.put("lastFlushMillis", lastFlushMillis);
+        stats.put("lastFlushAt", lastFlushAt);
+        return stats;
+    }
+
+    /**
+     * Drops the counters of listings that have nothing pending and have left
+     * the window, so the map does not keep every listing ever viewed.
+     */
+    private int pruneIdleCounters() {
+        int pruned = 0;
+        for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+            if (!windows.containsKey(entry.getKey()) && entry.getValue().retire()
+                    && counters.remove(entry.getKey(), entry.getValue())) {
+                pruned++;
+            }
+        }
+        return pruned;
+    }
+
+    private void rank(long current) {
+        if (decay == null) {
+            decay = new double[windowSlots];
+            for (int age = 0; age < windowSlots; age++) {
+                decay[age] = Math.pow(0.5, age * slotSeconds / (halfLifeMinutes * 60.0));
+            }
+        }
+        PriorityQueue<Trend> heap = new PriorityQueue<>(topK + 1, Comparator.comparingDouble(Trend::score));
+        Iterator<Map.Entry<Long, Window>> iterator = windows.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Window> entry = iterator.next();
+            double score = entry.getValue().score(current, windowSlots, decay);
+            if (score <= 0) {
+                // Everything this listing had has slid out of the window
+                iterator.remove();
+                continue;
+            }
+            if (heap.size() < topK) {
+                heap.add(new Trend(entry.getKey(), score));
+            } else if (score > heap.peek().score()) {
+                heap.poll();
+                heap.add(new Trend(entry.getKey(), score));
+            }
+        }
+        List<Trend> ranked = new ArrayList<>(heap);
+        ranked.sort(Comparator.comparingDouble(Trend::score).reversed().thenComparing(Trend::sneakerId, Comparator.reverseOrder()));
+        top = List.copyOf(ranked);
+    }
+
+    private static double points(long[] counts) {
+        double points = 0;
+        for (int i = 0; i < TYPES.length; i++) {
+            points += WEIGHTS[i] * counts[i];
+        }
+        return points;
+    }
+
+    private long currentSlot() {
+        return System.currentTimeMillis() / 1000 / slotSeconds;
+    }
+
+    private LocalDateTime slotStart(long slot) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(slot * slotSeconds), ZoneId.systemDefault());
+    }
+
+    private long slotOf(LocalDateTime slotStart) {
+        return slotStart.atZone(ZoneId.systemDefault()).toEpochSecond() / slotSeconds;
+    }
+
+    private static final class Counter {
+        final LongAdder[] live = new LongAdder[TYPES.length];
+        // Only touched by flush(), under flushLock
+        final long[] flushed = new long[TYPES.length];
+        volatile boolean retired;
+
+        Counter() {
+            for (int i = 0; i < live.length; i++) {
+                live[i] = new LongAdder();
+            }
+        }
+
+        /** Counts one event, or returns false without counting it once the counter is retired. */
+        boolean record(int type) {
+            live[type].increment();
+            if (!retired) {
+                return true;
+            }
+            live[type].decrement();
+            return false;
+        }
+
+        /**
+         * Retires the counter if nothing is pending. An event recorded before
+         * the flag was visible shows up in the re-check and keeps it live.
+         */
+        boolean retire() {
+            retired = true;
+            if (pending() == null) {
+                return true;
+            }
+            retired = false;
+            return false;
+        }
+
+        long[] pending() {
+            long[] delta = new long[live.length];
+            boolean any = false;
+            for (int i = 0; i < live.length; i++) {
+                delta[i] = live[i].sum() - flushed[i];
+                any |= delta[i] != 0;
+            }
+            return any ? delta : null;
+        }
+
+        void markFlushed(long[] delta) {
+            for (int i = 0; i < flushed.length; i++) {
+                flushed[i] += delta[i];
+            }
+        }
+    }
+
+    /**
+     * Points per slot for one listing, oldest first. Only slots that saw
+     * activity are stored, and slots that leave the window are dropped.
+     */
+    private static final class Window {
+        long[] slots = new long[2];
+        double[] points = new double[2];
+        int size;
+
+        // Slots arrive in ascending order: startup loads them sorted and flushes only move forward
+        void add(long slot, double value) {
+            if (size > 0 && slots[size - 1] == slot) {
+                points[size - 1] += value;
+                return;
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                points = Arrays.copyOf(points, size * 2);
+            }
+            slots[size] = slot;
+            points[size] = value;
+            size++;
+        }
+
+        double score(long current, int windowSlots, double[] decay) {
+            int expired = 0;
+            while (expired < size && current - slots[expired] >= windowSlots) {
+                expired++;
+            }
+            if (expired > 0) {
+                System.arraycopy(slots, expired, slots, 0, size - expired);
+                System.arraycopy(points, expired, points, 0, size - expired);
+                size -= expired;
+            }
+            double score = 0;
+            for (int i = 0; i < size; i++) {
+                score += points[i] * decay[(int) Math.max(0, current - slots[i])];
+            }
+            return score;
+        }
+    }
+}
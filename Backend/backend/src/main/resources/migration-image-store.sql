@@ -0,0 +1,10 @@
+-- Migration script for the on-disk image store
+-- Run this only AFTER POST /api/admin/images/migrate has converted every
+-- base64 row, otherwise the remaining inline images will be truncated.
+
+-- Verify nothing inline is left (expected result: 0)
+SELECT COUNT(*) FROM sneaker_images WHERE image_url LIKE 'data:%';
+
+-- sneaker_images now only holds short store ids or external URLs
+ALTER TABLE sneaker_images
+MODIFY COLUMN image_url VARCHAR(512);
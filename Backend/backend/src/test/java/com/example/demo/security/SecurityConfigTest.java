@@ -0,0 +1,63 @@
+package com.example.demo.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Anonymous callers may read the public catalog, but the {id} matcher must
+ * not open up the export, import or bulk endpoints that share its prefix.
+ */
+@SpringBootTest
+class SecurityConfigTest {
+
+    @Autowired
+    private WebApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    // Built by hand so the test shares the cached context, and its H2 database, with the other tests
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+    }
+
+    @Test
+    void catalogReadsArePublic() throws Exception {
+        assertNotEquals(403, status(get("/api/sneakers/all")));
+        assertNotEquals(403, status(get("/api/sneakers/1")));
+        assertNotEquals(403, status(get("/api/sneakers/1/similar")));
+        assertNotEquals(403, status(get("/api/sneakers/search").param("q", "nike")));
+        assertNotEquals(403, status(get("/api/sneakers/filter")));
+        assertNotEquals(403, status(get("/api/sneakers/suggest").param("q", "ni")));
+        assertNotEquals(403, status(get("/api/sneakers/trending")));
+        assertNotEquals(403, status(get("/api/reviews/sneaker/1")));
+    }
+
+    @Test
+    void exportAndWritesNeedAnAccount() throws Exception {
+        assertEquals(403, status(get("/api/sneakers/export")));
+        assertEquals(403, status(get("/api/sneakers/my-sneakers")));
+        assertEquals(403, status(post("/api/sneakers/import").contentType("text/csv").content("name\n")));
+        assertEquals(403, status(put("/api/sneakers/bulk").contentType(MediaType.APPLICATION_JSON).content("{}")));
+        assertEquals(403, status(put("/api/sneakers/1").contentType(MediaType.APPLICATION_JSON).content("{}")));
+        assertEquals(403, status(post("/api/reviews/sneaker/1")));
+    }
+
+    private int status(RequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn().getResponse().getStatus();
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReviewRequest;
+import com.example.demo.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.example.demo.support.TestFixtures.authenticate;
+import static com.example.demo.support.TestFixtures.createUser;
+import static com.example.demo.support.TestFixtures.orderRequest;
+import static com.example.demo.support.TestFixtures.sneakerRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * An incremental export has to carry every change a partner needs to stay
+ * in sync: sold-out listings, rating changes and deletions.
+ */
+@SpringBootTest
+class CatalogExportServiceTest {
+
+    @Autowired
+    private CatalogExportService catalogExportService;
+
+    @Autowired
+    private SneakerService sneakerService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void incrementalExportReportsSoldOutRatedAndDeletedListings() throws Exception {
+        createUser(userRepository, "export-seller");
+        createUser(userRepository, "export-buyer");
+        authenticate("export-seller");
+        Long unchanged = sneakerService.createSneaker(sneakerRequest("Export Unchanged", 5)).getId();
+        Long soldOut = sneakerService.createSneaker(sneakerRequest("Export Last Pair", 1)).getId();
+        Long rated = sneakerService.createSneaker(sneakerRequest("Export Rated", 5)).getId();
+        Long deleted = sneakerService.createSneaker(sneakerRequest("Export Deleted", 5)).getId();
+
+        Thread.sleep(20);
+        LocalDateTime since = LocalDateTime.now();
+        Thread.sleep(20);
+
+        sneakerService.deleteSneaker(deleted);
+        authenticate("export-buyer");
+        orderService.createOrder(orderRequest(soldOut));
+        ReviewRequest review = new ReviewRequest();
+        review.setSneakerId(rated);
+        review.setRating(4);
+        review.setComment("Comfortable");
+        reviewService.createReview(review);
+
+        Map<Long, JsonNode> delta = export(since);
+        assertFalse(delta.containsKey(unchanged));
+        assertFalse(delta.get(soldOut).get("available").asBoolean());
+        assertEquals(0, delta.get(soldOut).get("stock").asInt());
+        assertEquals(1, delta.get(rated).get("reviewCount").asInt());
+        assertEquals(4.0, delta.get(rated).get("averageRating").asDouble());
+        assertTrue(delta.get(rated).get("available").asBoolean());
+        assertTrue(delta.get(deleted).get("deleted").asBoolean());
+        assertTrue(delta.get(deleted).hasNonNull("deletedAt"));
+
+        Map<Long, JsonNode> full = export(null);
+        assertTrue(full.containsKey(unchanged));
+        assertFalse(full.containsKey(soldOut));
+        assertFalse(full.containsKey(deleted));
+    }
+
+    private Map<Long, JsonNode> export(LocalDateTime since) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        catalogExportService.export(since, output);
+        Map<Long, JsonNode> lines = new LinkedHashMap<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isBlank()) {
+                JsonNode node = objectMapper.readTree(line);
+                lines.put(node.get("id").asLong(), node);
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.CheckoutRequest;
+import com.example.demo.model.Order;
+import com.example.demo.repository.SneakerRepository;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.example.demo.support.TestFixtures.authenticate;
+import static com.example.demo.support.TestFixtures.createUser;
+import static com.example.demo.support.TestFixtures.orderRequest;
+import static com.example.demo.support.TestFixtures.sneakerRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares cart checkout with ordering the same pairs one call at a time.
+ * Buyers run in parallel and half of them list the cart in reverse, which
+ * would deadlock if checkout did not take stock in a fixed order. Timings
+ * are reported, not asserted, so a slow machine cannot fail the build.
+ */
+@SpringBootTest
+class CheckoutBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(CheckoutBenchmarkTest.class);
+
+    private static final int BUYERS = 8;
+    private static final int CART_SIZE = 5;
+    private static final int CARTS_PER_BUYER = 4;
+    private static final int ROUNDS = 3;
+    private static final int STOCK = 1000;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private SneakerService sneakerService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SneakerRepository sneakerRepository;
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void checkoutAgainstSequentialOrders() throws Exception {
+        createUser(userRepository, "bench-seller");
+        for (int i = 0; i < BUYERS; i++) {
+            createUser(userRepository, "bench-buyer-" + i);
+        }
+        authenticate("bench-seller");
+        List<Long> sneakerIds = new ArrayList<>();
+        for (int i = 0; i < CART_SIZE; i++) {
+            sneakerIds.add(sneakerService.createSneaker(sneakerRequest("Bench Pair " + i, STOCK)).getId());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+        long sequentialNanos = 0;
+        long checkoutNanos = 0;
+        try {
+            // The first round warms up both paths and is not counted
+            for (int round = 0; round <= ROUNDS; round++) {
+                long sequential = runBuyers(pool, buyer -> {
+                    for (int cart = 0; cart < CARTS_PER_BUYER; cart++) {
+                        for (Long sneakerId : sneakerIds) {
+                            orderService.createOrder(orderRequest(sneakerId));
+                        }
+                    }
+                });
+                long checkout = runBuyers(pool, buyer -> {
+                    List<Long> cartOrder = new ArrayList<>(sneakerIds);
+                    if (buyer % 2 == 1) {
+                        Collections.reverse(cartOrder);
+                    }
+                    for (int cart = 0; cart < CARTS_PER_BUYER; cart++) {
+                        List<Order> orders = orderService.checkout(checkoutRequest(cartOrder));
+                        assertEquals(CART_SIZE, orders.size());
+                    }
+                });
+                if (round > 0) {
+                    sequentialNanos += sequential;
+                    checkoutNanos += checkout;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        int pairs = ROUNDS * BUYERS * CARTS_PER_BUYER * CART_SIZE;
+        logger.info(String.format("%d pairs over %d buyers: sequential %.0f ms (%.0f pairs/s), checkout %.0f ms (%.0f pairs/s), %.2fx",
+                pairs, BUYERS, sequentialNanos / 1e6, pairs / (sequentialNanos / 1e9),
+                checkoutNanos / 1e6, pairs / (checkoutNanos / 1e9), (double) sequentialNanos / checkoutNanos));
+
+        int taken = 2 * (ROUNDS + 1) * BUYERS * CARTS_PER_BUYER;
+        for (Long sneakerId : sneakerIds) {
+            assertEquals(STOCK - taken, sneakerRepository.findById(sneakerId).orElseThrow().getStock());
+        }
+    }
+
+    @FunctionalInterface
+    private interface BuyerTask {
+        void run(int buyer) throws Exception;
+    }
+
+    private static long runBuyers(ExecutorService pool, BuyerTask task) throws Exception {
+        List<Callable<Void>> buyers = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            int buyer = i;
+            buyers.add(() -> {
+                authenticate("bench-buyer-" + buyer);
+                try {
+                    task.run(buyer);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+                return null;
+            });
+        }
+        long started = System.nanoTime();
+        for (Future<Void> result : pool.invokeAll(buyers)) {
+            result.get();
+        }
+        return System.nanoTime() - started;
+    }
+
+    private static CheckoutRequest checkoutRequest(List<Long> sneakerIds) {
+        List<CheckoutRequest.Item> items = new ArrayList<>();
+        for (Long sneakerId : sneakerIds) {
+            CheckoutRequest.Item item = new CheckoutRequest.Item();
+            item.setSneakerId(sneakerId);
+            items.add(item);
+        }
+        CheckoutRequest request = new CheckoutRequest();
+        request.setItems(items);
+        request.setShippingAddress("1 Test Street");
+        request.setPhoneNumber("5550100");
+        return request;
+    }
+}
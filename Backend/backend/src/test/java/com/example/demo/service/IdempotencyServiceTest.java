@@ -0,0 +1,84 @@
+package com.example.demo.service;
+
+import com.example.demo.controller.OrderController;
+import com.example.demo.repository.IdempotencyRecordRepository;
+import com.example.demo.repository.OrderRepository;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static com.example.demo.support.TestFixtures.authenticate;
+import static com.example.demo.support.TestFixtures.createUser;
+import static com.example.demo.support.TestFixtures.orderRequest;
+import static com.example.demo.support.TestFixtures.sneakerRequest;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The Idempotency-Key row commits with the order it guards: a retry replays
+ * the stored order, and a request that fails leaves the key free.
+ */
+@SpringBootTest
+class IdempotencyServiceTest {
+
+    @Autowired
+    private OrderController orderController;
+
+    @Autowired
+    private SneakerService sneakerService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void retryReplaysTheStoredOrder() {
+        createUser(userRepository, "idempotent-seller");
+        createUser(userRepository, "idempotent-buyer");
+        authenticate("idempotent-seller");
+        Long sneakerId = sneakerService.createSneaker(sneakerRequest("Idempotent Replay", 5)).getId();
+        long ordersBefore = orderRepository.count();
+
+        authenticate("idempotent-buyer");
+        ResponseEntity<?> first = orderController.createOrder(orderRequest(sneakerId), "replay-key");
+        ResponseEntity<?> retry = orderController.createOrder(orderRequest(sneakerId), "replay-key");
+
+        assertEquals(200, first.getStatusCode().value());
+        assertEquals(200, retry.getStatusCode().value());
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertArrayEquals((byte[]) first.getBody(), (byte[]) retry.getBody());
+        assertEquals(ordersBefore + 1, orderRepository.count());
+        assertEquals(200, idempotencyRecordRepository
+                .findClaimByOwnerAndIdempotencyKey("idempotent-buyer", "replay-key").orElseThrow().getStatusCode());
+    }
+
+    @Test
+    void failedRequestLeavesTheKeyFree() {
+        createUser(userRepository, "idempotent-own-seller");
+        authenticate("idempotent-own-seller");
+        Long sneakerId = sneakerService.createSneaker(sneakerRequest("Idempotent Own Listing", 5)).getId();
+
+        ResponseEntity<?> rejected = orderController.createOrder(orderRequest(sneakerId), "failed-key");
+
+        assertEquals(400, rejected.getStatusCode().value());
+        assertTrue(idempotencyRecordRepository
+                .findClaimByOwnerAndIdempotencyKey("idempotent-own-seller", "failed-key").isEmpty());
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Sneaker;
+import com.example.demo.repository.SneakerRepository;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.demo.support.TestFixtures.authenticate;
+import static com.example.demo.support.TestFixtures.createUser;
+import static com.example.demo.support.TestFixtures.orderRequest;
+import static com.example.demo.support.TestFixtures.sneakerRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 64 buyers hammer one listing through {@link OrderService#createOrder}.
+ * The conditional stock UPDATE must hand out exactly the stock there is:
+ * no oversold pairs, no negative stock, and the listing ends up SOLD.
+ */
+@SpringBootTest
+class OrderServiceConcurrencyTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderServiceConcurrencyTest.class);
+
+    private static final int BUYERS = 64;
+    private static final int ATTEMPTS_PER_BUYER = 16;
+    private static final int STOCK = 500;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private SneakerService sneakerService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SneakerRepository sneakerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void parallelBuyersNeverOversell() throws Exception {
+        createUser(userRepository, "stress-seller");
+        for (int i = 0; i < BUYERS; i++) {
+            createUser(userRepository, "stress-buyer-" + i);
+        }
+        authenticate("stress-seller");
+        Long sneakerId = sneakerService.createSneaker(sneakerRequest("Stress Test Runner", STOCK)).getId();
+
+        ExecutorService pool = Executors.newFixedThreadPool(BUYERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        ConcurrentLinkedQueue<String> unexpected = new ConcurrentLinkedQueue<>();
+        List<Future<?>> buyers = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            String username = "stress-buyer-" + i;
+            buyers.add(pool.submit(() -> {
+                authenticate(username);
+                start.await();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_BUYER; attempt++) {
+                    try {
+                        orderService.createOrder(orderRequest(sneakerId));
+                        placed.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        if ("Sneaker is out of stock".equals(e.getMessage())
+                                || "Sneaker is not available for purchase".equals(e.getMessage())) {
+                            soldOut.incrementAndGet();
+                        } else {
+                            unexpected.add(e.toString());
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> buyer : buyers) {
+            buyer.get();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        pool.shutdown();
+
+        Sneaker after = sneakerRepository.findById(sneakerId).orElseThrow();
+        Integer orders = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE sneaker_id = ?", Integer.class, sneakerId);
+        logger.info(String.format("%d buyers: %d orders, %d turned away in %.2fs (%.0f attempts/s, %.0f orders/s)",
+                BUYERS, placed.get(), soldOut.get(), seconds, (BUYERS * ATTEMPTS_PER_BUYER) / seconds, placed.get() / seconds));
+
+        assertTrue(unexpected.isEmpty(), () -> "Unexpected failures: " + unexpected);
+        assertEquals(STOCK, placed.get());
+        assertEquals(BUYERS * ATTEMPTS_PER_BUYER - STOCK, soldOut.get());
+        assertEquals(STOCK, orders);
+        assertEquals(0, after.getStock());
+        assertEquals(Sneaker.SneakerStatus.SOLD, after.getStatus());
+    }
+}
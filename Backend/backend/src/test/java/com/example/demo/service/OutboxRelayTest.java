@@ -0,0 +1,91 @@
+package com.example.demo.service;
+
+import com.example.demo.model.OutboxEvent;
+import com.example.demo.repository.OutboxEventRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * An event that keeps failing is parked and holds back the rest of its
+ * aggregate, instead of being skipped, while other aggregates keep flowing.
+ */
+@SpringBootTest
+class OutboxRelayTest {
+
+    private static final String TYPE = "RELAY_TEST";
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void failingEventIsParkedAndBlocksItsAggregate() throws InterruptedException {
+        AtomicBoolean failing = new AtomicBoolean(true);
+        List<Long> seen = new CopyOnWriteArrayList<>();
+        outboxRelay.subscribe(TYPE, message -> {
+            if (failing.get() && message.getAggregateId() == 1L) {
+                throw new IllegalStateException("Subscriber is down");
+            }
+            seen.add(message.getId());
+        });
+
+        Long poison = record(1L, "FIRST");
+        Long blocked = record(1L, "SECOND");
+        Long other = record(2L, "OTHER");
+        // Start the poison event on its last attempt rather than waiting out the backoff
+        transactionTemplate.executeWithoutResult(status -> {
+            OutboxEvent event = outboxEventRepository.findById(poison).orElseThrow();
+            event.setAttempts(9);
+        });
+
+        awaitTrue(() -> outboxEventRepository.findById(poison).orElseThrow().getParkedAt() != null);
+        awaitTrue(() -> outboxEventRepository.findById(other).orElseThrow().getPublishedAt() != null);
+        outboxRelay.relay();
+        assertNull(outboxEventRepository.findById(blocked).orElseThrow().getPublishedAt());
+        assertEquals(List.of(other), seen);
+
+        failing.set(false);
+        assertTrue(outboxRelay.retryParked() >= 1);
+        awaitTrue(() -> outboxEventRepository.findById(blocked).orElseThrow().getPublishedAt() != null);
+        assertNotNull(outboxEventRepository.findById(poison).orElseThrow().getPublishedAt());
+        assertEquals(List.of(other, poison, blocked), seen);
+    }
+
+    private Long record(Long aggregateId, String eventType) {
+        transactionTemplate.executeWithoutResult(status ->
+                outboxService.record(TYPE, aggregateId, eventType, Map.of("aggregateId", aggregateId)));
+        return outboxEventRepository.findAll().stream()
+                .filter(event -> TYPE.equals(event.getAggregateType()) && eventType.equals(event.getEventType()))
+                .map(OutboxEvent::getId)
+                .findFirst().orElseThrow();
+    }
+
+    private void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for the relay");
+            outboxRelay.relay();
+            Thread.sleep(50);
+        }
+    }
+}
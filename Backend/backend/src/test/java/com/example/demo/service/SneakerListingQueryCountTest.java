@@ -0,0 +1,144 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.SneakerRequest;
+import com.example.demo.support.TestFixtures;
+import com.example.demo.model.Sneaker;
+import com.example.demo.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.demo.support.TestFixtures.authenticate;
+import static com.example.demo.support.TestFixtures.createUser;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the statements behind the sneaker list queries with Hibernate
+ * statistics. Images and seller roles are batch-loaded, so the count must
+ * not grow with the number of sneakers or sellers on the page.
+ */
+@SpringBootTest
+class SneakerListingQueryCountTest {
+
+    // Listing query, seller roles, sneaker images
+    private static final int LISTING_STATEMENTS = 3;
+    // Seller lookup and its roles, listing query, sneaker images
+    private static final int MY_SNEAKERS_STATEMENTS = 4;
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private SneakerService sneakerService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void enableStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        statistics.setStatisticsEnabled(false);
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void catalogListingDoesNotGrowWithSneakersOrSellers() {
+        listSneakers(2, 3);
+        int smallSize = sneakerService.getAvailableListing().size();
+        long small = countStatements(() -> sneakerService.getAvailableListing());
+
+        listSneakers(5, 6);
+        int largeSize = sneakerService.getAvailableListing().size();
+        long large = countStatements(() -> sneakerService.getAvailableListing());
+
+        assertTrue(largeSize >= smallSize + 30, () -> smallSize + " -> " + largeSize);
+        assertEquals(small, large);
+        assertTrue(large <= LISTING_STATEMENTS, () -> "Catalog listing prepared " + large + " statements");
+    }
+
+    @Test
+    void mySneakersDoesNotGrowWithListings() {
+        String seller = listSneakers(1, 2).get(0);
+        authenticate(seller);
+        assertEquals(2, sneakerService.getMySneakerListing().size());
+        long small = countStatements(() -> sneakerService.getMySneakerListing());
+
+        createSneakers(seller, 10);
+        authenticate(seller);
+        assertEquals(12, sneakerService.getMySneakerListing().size());
+        long large = countStatements(() -> sneakerService.getMySneakerListing());
+
+        assertEquals(small, large);
+        assertTrue(large <= MY_SNEAKERS_STATEMENTS, () -> "My sneakers prepared " + large + " statements");
+    }
+
+    @Test
+    void entityListLoadsImagesAndRolesInBatches() {
+        listSneakers(4, 4);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        // Touch what the JSON serializer touches, inside one session as open-in-view would
+        long statements = countStatements(() -> readOnly.executeWithoutResult(status -> {
+            for (Sneaker sneaker : sneakerService.getAllSneakers()) {
+                sneaker.getImageUrls().size();
+                sneaker.getSeller().getRoles().size();
+            }
+        }));
+
+        assertTrue(statements <= LISTING_STATEMENTS, () -> "Sneaker list prepared " + statements + " statements");
+    }
+
+    private long countStatements(Runnable action) {
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    /** Creates {@code sellers} sellers with {@code perSeller} listings of two images each. */
+    private List<String> listSneakers(int sellers, int perSeller) {
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < sellers; i++) {
+            String username = "count-seller-" + SEQUENCE.incrementAndGet();
+            createUser(userRepository, username, i % 2 == 0 ? Set.of("ROLE_USER") : Set.of("ROLE_USER", "ROLE_ADMIN"));
+            createSneakers(username, perSeller);
+            usernames.add(username);
+        }
+        SecurityContextHolder.clearContext();
+        return usernames;
+    }
+
+    private void createSneakers(String seller, int count) {
+        authenticate(seller);
+        for (int i = 0; i < count; i++) {
+            SneakerRequest request = TestFixtures.sneakerRequest(seller + " Pair " + i, 3);
+            request.setImageUrls(List.of("https://example.com/front.jpg", "https://example.com/side.jpg"));
+            sneakerService.createSneaker(request);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.SneakerDocument;
+import com.example.demo.event.SneakerChangedEvent;
+import com.example.demo.service.SneakerSearchIndex.Field;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pins the typo handling of {@link SneakerSearchIndex}: the bounded edit
+ * distance and the padded bigrams that pick fuzzy candidates.
+ */
+class SneakerSearchIndexTest {
+
+    private static final EnumSet<Field> NAME_AND_BRAND = EnumSet.of(Field.NAME, Field.BRAND);
+
+    private SneakerSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new SneakerSearchIndex();
+        index.onSneakerChanged(SneakerChangedEvent.created(document(1L, "Air Jordan 1 Retro High", "Nike")));
+        index.onSneakerChanged(SneakerChangedEvent.created(document(2L, "Yeezy Boost 350", "Adidas")));
+        index.onSneakerChanged(SneakerChangedEvent.created(document(3L, "Gel Lyte III", "Asics")));
+    }
+
+    @Test
+    void transpositionCountsAsOneEdit() {
+        assertEquals(1, SneakerSearchIndex.boundedDistance("jordna", "jordan", 2));
+        assertEquals(1, SneakerSearchIndex.boundedDistance("ab", "ba", 1));
+    }
+
+    @Test
+    void insertionsAndSubstitutionsCountAsOneEditEach() {
+        assertEquals(0, SneakerSearchIndex.boundedDistance("yeezy", "yeezy", 2));
+        assertEquals(1, SneakerSearchIndex.boundedDistance("yezy", "yeezy", 1));
+        assertEquals(2, SneakerSearchIndex.boundedDistance("jprdn", "jordan", 2));
+    }
+
+    @Test
+    void givesUpAtMaxPlusOne() {
+        // Length gap alone rules the pair out
+        assertEquals(2, SneakerSearchIndex.boundedDistance("air", "airmax", 1));
+        // Every row of the table exceeds the bound
+        assertEquals(3, SneakerSearchIndex.boundedDistance("asics", "yeezy", 2));
+        assertEquals(1, SneakerSearchIndex.boundedDistance("nike", "puma", 0));
+    }
+
+    @Test
+    void paddedBigramsCoverFirstAndLastLetters() {
+        assertEquals(List.of(" j", "jo", "or", "rd", "da", "an", "n "),
+                List.copyOf(SneakerSearchIndex.paddedBigrams("jordan")));
+        assertEquals(Set.of(" a", "a "), SneakerSearchIndex.paddedBigrams("a"));
+    }
+
+    @Test
+    void swappedLettersStillShareBigrams() {
+        Set<String> shared = SneakerSearchIndex.paddedBigrams("jordna");
+        shared.retainAll(SneakerSearchIndex.paddedBigrams("jordan"));
+        assertTrue(shared.containsAll(Set.of(" j", "jo", "or", "rd")), () -> "Shared bigrams: " + shared);
+    }
+
+    @Test
+    void fuzzySearchFindsMisspelledNames() {
+        assertEquals(List.of(1L), index.search("jordna", NAME_AND_BRAND, 10, true));
+        assertEquals(List.of(2L), index.search("yezy", NAME_AND_BRAND, 10, true));
+        assertEquals(List.of(2L), index.search("yezy boost", NAME_AND_BRAND, 10, true));
+    }
+
+    @Test
+    void exactSearchIgnoresMisspellings() {
+        assertEquals(List.of(), index.search("jordna", NAME_AND_BRAND, 10, false));
+        assertEquals(List.of(), index.search("yezy", NAME_AND_BRAND, 10));
+        assertEquals(List.of(1L), index.search("jordan", NAME_AND_BRAND, 10, false));
+    }
+
+    private static SneakerDocument document(Long id, String name, String brand) {
+        return new SneakerDocument(id, name, brand, null, "Black", "10", "NEW",
+                new BigDecimal("150.00"), 1, LocalDateTime.now());
+    }
+}
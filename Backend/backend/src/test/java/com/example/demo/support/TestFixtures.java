@@ -0,0 +1,61 @@
+package com.example.demo.support;
+
+import com.example.demo.dto.OrderRequest;
+import com.example.demo.dto.SneakerRequest;
+import com.example.demo.model.User;
+import com.example.demo.repository.UserRepository;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Users, requests and authentication shared by the service tests.
+ */
+public final class TestFixtures {
+
+    private TestFixtures() {}
+
+    public static User createUser(UserRepository userRepository, String username) {
+        return createUser(userRepository, username, Set.of("ROLE_USER"));
+    }
+
+    public static User createUser(UserRepository userRepository, String username, Set<String> roles) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setPassword("password");
+        user.setRoles(new HashSet<>(roles));
+        return userRepository.save(user);
+    }
+
+    /** Signs {@code username} in on the current thread, the way the JWT filter would. */
+    public static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    /** A valid new listing with one image. */
+    public static SneakerRequest sneakerRequest(String name, int stock) {
+        SneakerRequest request = new SneakerRequest();
+        request.setName(name);
+        request.setBrand("Nike");
+        request.setPrice(new BigDecimal("150.00"));
+        request.setSize("10");
+        request.setColor("Black");
+        request.setCondition("NEW");
+        request.setStock(stock);
+        request.setImageUrls(List.of("https://example.com/front.jpg"));
+        return request;
+    }
+
+    public static OrderRequest orderRequest(Long sneakerId) {
+        OrderRequest request = new OrderRequest();
+        request.setSneakerId(sneakerId);
+        request.setShippingAddress("1 Test Street");
+        request.setPhoneNumber("5550100");
+        return request;
+    }
+}